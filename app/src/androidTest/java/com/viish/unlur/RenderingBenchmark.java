@@ -0,0 +1,137 @@
+package com.viish.unlur;
+
+/*
+RenderingBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks of the board rendering path, which needs a device: the engine ones are in the
+ * benchmarks module. Views are drawn into an offscreen bitmap the size of a phone screen.
+ * <p>
+ * ./gradlew :app:connectedAndroidTest, results end up in the logcat and in app/build/outputs.
+ * Numbers from emulators and debuggable builds are only indicative.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderingBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1350;
+    // Step in pixels between the points tested against the board
+    private static final int TOUCH_STEP = 16;
+    // Too large to fit on a screen, see GameView
+    private static final int LARGE_SIZE = 30;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void hitTesting() {
+        BoardGeometry geometry = BoardGeometry.get(GameView.HEX_COUNT, WIDTH, HEIGHT);
+        int[] axial = new int[2];
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int y = 0; y < HEIGHT; y += TOUCH_STEP) {
+                for (int x = 0; x < WIDTH; x += TOUCH_STEP) {
+                    geometry.getAxialAt(x, y, axial);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void viewportCulling() {
+        // A large board laid out with wide cells, seen through a screen
+        int lines = LARGE_SIZE * 2 - 1;
+        BoardGeometry geometry = BoardGeometry.get(LARGE_SIZE, lines * 160, lines * 200);
+        int[] cells = new int[3 * LARGE_SIZE * LARGE_SIZE];
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            geometry.getCellsIn(4000, 5000, 4000 + WIDTH, 5000 + HEIGHT, cells);
+        }
+    }
+
+    @Test
+    public void fullRedraw() {
+        final GameView view = createView(GameView.HEX_COUNT);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        view.draw(canvas);
+        BenchmarkState state = mBenchmarkRule.getState();
+        boolean isVisible = false;
+        while (state.keepRunning()) {
+            // Showing or hiding the overlays repaints every cell into the cached bitmap
+            isVisible = !isVisible;
+            view.setOverlayVisible(isVisible);
+            view.draw(canvas);
+        }
+    }
+
+    @Test
+    public void dirtyCellRedraw() {
+        final GameView view = createView(GameView.HEX_COUNT);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        view.draw(canvas);
+        BenchmarkState state = mBenchmarkRule.getState();
+        boolean isBlack = false;
+        while (state.keepRunning()) {
+            isBlack = !isBlack;
+            view.setHexaColor(0, 0, isBlack ? Color.BLACK : Color.WHITE);
+            view.draw(canvas);
+        }
+    }
+
+    @Test
+    public void largeBoardFrame() {
+        final GameView view = createView(LARGE_SIZE);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            view.draw(canvas);
+        }
+    }
+
+    /**
+     * Creates a view of the board laid out at the benchmark size, on the main thread which
+     * its gesture detectors need.
+     */
+    private static GameView createView(final int size) {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final GameView[] view = new GameView[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                view[0] = new GameView(context, size);
+                view[0].measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                view[0].layout(0, 0, WIDTH, HEIGHT);
+            }
+        });
+        return view[0];
+    }
+}
@@ -0,0 +1,238 @@
+package com.viish.unlur;
+
+/*
+BoardGeometry.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import android.graphics.Path;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pixel layout of a board of a given size in a given area: cell positions, hexagon paths and
+ * what is needed to convert a point back to axial coordinates.
+ * Instances are immutable and cached by (size, width, height), so a relayout that doesn't
+ * change any of them costs nothing.
+ * Cells are numbered row by row, from top to bottom and left to right.
+ */
+public class BoardGeometry {
+    // Cells used to be views measured with at most 250 pixels of height
+    private static final int HEXA_MAX_HEIGHT = 250;
+    private static final int CACHE_SIZE = 4;
+
+    private static final Map<Long, BoardGeometry> sCache = new LinkedHashMap<Long, BoardGeometry>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BoardGeometry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final int mSize, mWidth, mHeight;
+    private final int mHexaWidth, mHexaHeight;
+    private final int[] mCellLeft, mCellTop;
+    private final int[] mRowStart, mRowLength;
+    // Center of the (0, 0) cell and vertical distance between two rows
+    private final float mOriginX, mOriginY, mRowHeight;
+    private final Path mHexagonPath, mHexagonContourPath;
+
+    public static synchronized BoardGeometry get(int size, int width, int height) {
+        long key = ((long) size << 40) | ((long) width << 20) | height;
+        BoardGeometry geometry = sCache.get(key);
+        if (geometry == null) {
+            geometry = new BoardGeometry(size, width, height);
+            sCache.put(key, geometry);
+        }
+        return geometry;
+    }
+
+    private BoardGeometry(int size, int width, int height) {
+        mSize = size;
+        mWidth = width;
+        mHeight = height;
+
+        int lines = size * 2 - 1;
+        int cellCount = 3 * size * size - 3 * size + 1;
+        final int hexaMaxSize = width / lines;
+
+        // Radius of inside circle
+        int ri = Math.min(hexaMaxSize, Math.min(HEXA_MAX_HEIGHT, height)) / 2;
+        // Radius of circumscribed circle
+        int rc = (int) Math.round(ri * 2 / Math.sqrt(3));
+        mHexaWidth = ri * 2;
+        mHexaHeight = rc * 2;
+
+        mHexagonPath = new Path();
+        mHexagonContourPath = new Path();
+        calculatePath(rc);
+
+        int hexaSide = Math.round(Math.round(mHexaWidth / Math.sqrt(3)));
+        // Since we don't want any space between the hex, the real size of a hex is 3/2 * it's side
+        // (top hat + a side)
+        int hexaFakeHeight = 3 * hexaSide / 2;
+
+        int marginTop = (height - (hexaFakeHeight * lines)) / 2;
+
+        mRowHeight = hexaFakeHeight;
+        mOriginX = (width - (lines * mHexaWidth)) / 2 + (size - 1) * mHexaWidth + mHexaWidth / 2f;
+        mOriginY = marginTop + (size - 1) * hexaFakeHeight + mHexaHeight / 2f;
+
+        mCellLeft = new int[cellCount];
+        mCellTop = new int[cellCount];
+        mRowStart = new int[lines];
+        mRowLength = new int[lines];
+        int cell = 0;
+        for (int row = 0; row < lines; row++) {
+            int widthCount = lines - Math.abs(row - size + 1);
+            int marginLeft = (width - (widthCount * mHexaWidth)) / 2;
+            mRowStart[row] = cell;
+            mRowLength[row] = widthCount;
+            for (int j = 0; j < widthCount; j++) {
+                mCellLeft[cell] = marginLeft + j * mHexaWidth;
+                mCellTop[cell] = marginTop + row * hexaFakeHeight;
+                cell++;
+            }
+        }
+    }
+
+    private void calculatePath(float radius) {
+        float halfRadius = radius / 2;
+        float triangleHeight = (float) (Math.sqrt(3) * radius / 2);
+
+        // Both paths are centered on (0, 0) and translated to each cell when drawing
+        mHexagonContourPath.moveTo(0, radius);
+        mHexagonContourPath.lineTo(-triangleHeight, halfRadius);
+        mHexagonContourPath.lineTo(-triangleHeight, -halfRadius);
+        mHexagonContourPath.lineTo(0, -radius);
+        mHexagonContourPath.lineTo(triangleHeight, -halfRadius);
+        mHexagonContourPath.lineTo(triangleHeight, halfRadius);
+        mHexagonContourPath.close();
+
+        // 2 pixels margin
+        halfRadius = radius / 2 - 2;
+        triangleHeight = (float) (Math.sqrt(3) * radius / 2) - 2;
+
+        mHexagonPath.moveTo(0, radius);
+        mHexagonPath.lineTo(-triangleHeight, halfRadius);
+        mHexagonPath.lineTo(-triangleHeight, -halfRadius);
+        mHexagonPath.lineTo(0, -radius);
+        mHexagonPath.lineTo(triangleHeight, -halfRadius);
+        mHexagonPath.lineTo(triangleHeight, halfRadius);
+        mHexagonPath.close();
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getHexaWidth() {
+        return mHexaWidth;
+    }
+
+    public int getHexaHeight() {
+        return mHexaHeight;
+    }
+
+    public int getCellLeft(int cell) {
+        return mCellLeft[cell];
+    }
+
+    public int getCellTop(int cell) {
+        return mCellTop[cell];
+    }
+
+    public float getCellCenterX(int cell) {
+        return mCellLeft[cell] + mHexaWidth / 2f;
+    }
+
+    public float getCellCenterY(int cell) {
+        return mCellTop[cell] + mHexaHeight / 2f;
+    }
+
+    /**
+     * Lists the cells whose bounds intersect a rectangle, row by row, in time proportional to
+     * the number of rows and cells found rather than to the size of the board.
+     *
+     * @param cells receives the cells, large enough for all of them
+     * @return the number of cells found
+     */
+    public int getCellsIn(float left, float top, float right, float bottom, int[] cells) {
+        if (mRowHeight == 0) return 0;
+
+        int lines = mRowStart.length;
+        float firstTop = mCellTop[0];
+        int firstRow = Math.max(0, (int) Math.floor((top - firstTop - mHexaHeight) / mRowHeight) + 1);
+        int lastRow = Math.min(lines - 1, (int) Math.ceil((bottom - firstTop) / mRowHeight) - 1);
+        int count = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int start = mRowStart[row];
+            float rowLeft = mCellLeft[start];
+            int first = Math.max(0, (int) Math.floor((left - rowLeft) / mHexaWidth));
+            int last = Math.min(mRowLength[row] - 1, (int) Math.ceil((right - rowLeft) / mHexaWidth) - 1);
+            for (int j = first; j <= last; j++) {
+                cells[count++] = start + j;
+            }
+        }
+        return count;
+    }
+
+    public Path getHexagonPath() {
+        return mHexagonPath;
+    }
+
+    public Path getHexagonContourPath() {
+        return mHexagonContourPath;
+    }
+
+    /**
+     * Converts a point to fractional axial coordinates and rounds them to the nearest cell in
+     * cube coordinates, which gives the hexagon the point is in without testing any cell.
+     *
+     * @param axial receives q and r
+     * @return false if the point is outside of the board
+     */
+    public boolean getAxialAt(float x, float y, int[] axial) {
+        if (mRowHeight == 0) return false;
+
+        float r = (y - mOriginY) / mRowHeight;
+        float q = (x - mOriginX) / mHexaWidth - r / 2;
+        float s = -q - r;
+
+        int roundedQ = Math.round(q);
+        int roundedR = Math.round(r);
+        int roundedS = Math.round(s);
+        float diffQ = Math.abs(roundedQ - q);
+        float diffR = Math.abs(roundedR - r);
+        float diffS = Math.abs(roundedS - s);
+        if (diffQ > diffR && diffQ > diffS) {
+            roundedQ = -roundedR - roundedS;
+        } else if (diffR > diffS) {
+            roundedR = -roundedQ - roundedS;
+        }
+
+        int max = mSize - 1;
+        if (Math.abs(roundedQ) > max || Math.abs(roundedR) > max || Math.abs(roundedQ + roundedR) > max) {
+            return false;
+        }
+        axial[0] = roundedQ;
+        axial[1] = roundedR;
+        return true;
+    }
+}
@@ -19,35 +19,81 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>
 
 import android.app.Activity;
 import android.graphics.Color;
-import android.graphics.Point;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.SeekBar;
 import android.widget.Toast;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.ThreatMap;
+import com.viish.unlur.engine.Timeline;
+import com.viish.unlur.engine.ai.BookPlayer;
+import com.viish.unlur.engine.ai.MonteCarloPlayer;
+import com.viish.unlur.engine.ai.OpeningBook;
+import com.viish.unlur.engine.ai.Player;
+import com.viish.unlur.engine.ai.SearchScheduler;
+import com.viish.unlur.engine.ai.SolutionTable;
+import com.viish.unlur.engine.ai.Solver;
+import com.viish.unlur.engine.ai.SolverPlayer;
+import com.viish.unlur.engine.ai.TranspositionTable;
+import com.viish.unlur.engine.record.GameDatabase;
+import com.viish.unlur.engine.record.GameRecord;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.Nullable;
 
 public class Game extends Activity implements HexaListener {
-    enum EndGame {
-        NOPE,
-        VICTORY,
-        DEFEAT;
-    }
+    // Human always moves first when playing against the AI
+    private static final int AI_PLAYER = 1;
+    // The AI may think up to the longer time when unsure of its move
+    private static final long AI_TIME_MILLIS = 1500;
+    private static final long AI_MAX_TIME_MILLIS = 2500;
+    // Boards up to this size are small enough for the AI to play perfectly
+    private static final int SOLVER_MAX_SIZE = 3;
+    // Enough to solve the empty board of size 3 (2.5 million nodes) without a solution table
+    private static final long SOLVER_NODE_LIMIT = 4000000;
+    // Solution table of each of these sizes, written by the Solve tool
+    private static final String SOLUTION_FILE = "solution-%d.bin";
+    // Finished games are kept in this file of the app storage
+    private static final String GAMES_FILE = "games.unlur";
+    // Opening book of each size, built by the BuildBook tool
+    private static final String BOOK_FILE = "book-%d.bin";
 
     private GameView mGame;
-    private Button mStayBlack, mUndo;
-
-    private int mSize, mLines;
-    private boolean mIsBlackTurn;
-    private boolean mIsBlackChosen;
-    private Map<Point, HexaView> mHexas;
-    private ArrayList<HexaView> mLastMoves;
-    private boolean mIsGameFinished;
+    private Button mStayBlack, mUndo, mRedo, mHint;
+    private SeekBar mTimelineBar;
+    private CheckBox mShowThreats;
+
+    private int mSize;
+    private Timeline mTimeline;
+    // Position at the current ply of the timeline
+    private Board mBoard;
+    private ThreatMap mThreats;
+    // Solved positions of small boards, for instant hints and perfect play
+    private SolutionTable mSolution;
+    private Board mHintBoard;
+    private int[] mHintMoves;
+
+    // Whether the finished game at the end of the timeline is already in the games file
+    private boolean mIsGameSaved;
+    // Opened by the first save, its buffers are reused by the following ones
+    private GameDatabase.Writer mGamesWriter;
+
+    private Player mAI;
+    private MonteCarloPlayer mMonteCarlo;
+    private SearchScheduler mScheduler;
+    private boolean mIsAIThinking;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -58,211 +104,415 @@ public class Game extends Activity implements HexaListener {
         mGame.setListener(this);
 
         mSize = getIntent().getExtras().getInt("BoardSize");
-        mLines = mSize * 2 - 1;
-        mHexas = new HashMap<>();
+        mTimeline = new Timeline(mSize);
+        mBoard = mTimeline.getBoard();
+        mThreats = new ThreatMap();
+        mThreats.reset(mBoard);
 
-        mGame.setSize(mSize);
+        if (mSize <= SOLVER_MAX_SIZE) {
+            mSolution = loadSolution();
+        }
+
+        if (getIntent().getExtras().getBoolean("AgainstAI", false)) {
+            mMonteCarlo = new MonteCarloPlayer(AI_TIME_MILLIS);
+            mMonteCarlo.setTimeBudget(AI_TIME_MILLIS, AI_MAX_TIME_MILLIS);
+            mAI = mMonteCarlo;
+            if (mSize <= SOLVER_MAX_SIZE) {
+                SolverPlayer solver = new SolverPlayer(new Solver(new TranspositionTable(18)), SOLVER_NODE_LIMIT, mMonteCarlo);
+                solver.setSolutionTable(mSolution);
+                mAI = solver;
+            }
+            File book = new File(getFilesDir(), String.format(Locale.US, BOOK_FILE, mSize));
+            if (book.exists()) {
+                try {
+                    mAI = new BookPlayer(OpeningBook.open(book), mAI);
+                } catch (IOException e) {
+                    Log.e("Unlur", "Couldn't open the opening book", e);
+                }
+            }
+            // The solver doesn't use the tree, pondering would only take its CPU
+            MonteCarloPlayer ponderer = mSize <= SOLVER_MAX_SIZE ? null : mMonteCarlo;
+            mScheduler = new SearchScheduler(mAI, ponderer, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    runOnUiThread(command);
+                }
+            });
+        }
 
-        mIsBlackTurn = true;
-        mIsBlackChosen = false;
-        mIsGameFinished = false;
-        mLastMoves = new ArrayList<>();
+        mGame.setSize(mSize);
 
         mStayBlack = findViewById(R.id.black_button);
         mStayBlack.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                mStayBlack.setEnabled(false);
-                mIsBlackChosen = true;
-                mIsBlackTurn = false;
-
-                // Special meaning for staying black move
-                mLastMoves.add(null);
-                mUndo.setEnabled(true);
+                if (!canPlay() || !mBoard.canStayBlack()) {
+                    return;
+                }
 
-                // Enable sides
-                enableSides(true);
+                play(Board.STAY_BLACK);
             }
         });
 
         mUndo = findViewById(R.id.undo_button);
-        mUndo.setEnabled(false);
         mUndo.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (mLastMoves.isEmpty()) {
+                if (!mTimeline.canUndo()) {
                     return;
                 }
 
-                int lastMove = mLastMoves.size() - 1;
-                HexaView lastHexa = mLastMoves.get(lastMove);
-                mLastMoves.remove(lastMove);
-                if (lastHexa == null) {
-                    // Special meaning for staying black move
-                    mStayBlack.setEnabled(true);
-                    mIsBlackChosen = false;
-                    mIsBlackTurn = true;
-                    enableSides(false);
-                } else {
-                    lastHexa.setColor(Color.GRAY);
-                    lastHexa.setEnabled(true);
-                    if (mIsBlackChosen) {
-                        mIsBlackTurn = !mIsBlackTurn;
-                    }
+                int ply = mTimeline.getPly() - 1;
+                if (mAI != null && ply > 0 && ply % 2 == AI_PLAYER) {
+                    // Also take back the move the AI answered with
+                    ply--;
                 }
-                mUndo.setEnabled(!mLastMoves.isEmpty());
+                seek(ply);
             }
         });
+
+        mRedo = findViewById(R.id.redo_button);
+        mRedo.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (!mTimeline.canRedo()) {
+                    return;
+                }
+
+                int ply = mTimeline.getPly() + 1;
+                if (mAI != null && ply < mTimeline.getLength() && ply % 2 == AI_PLAYER) {
+                    // Along with the answer of the AI
+                    ply++;
+                }
+                seek(ply);
+            }
+        });
+
+        mTimelineBar = findViewById(R.id.timeline);
+        mTimelineBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                if (fromUser && progress != mTimeline.getPly()) {
+                    seek(progress);
+                }
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+            }
+        });
+
+        mHint = findViewById(R.id.hint_button);
+        mHint.setVisibility(mSolution != null ? View.VISIBLE : View.GONE);
+        mHint.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (canPlay()) {
+                    showHint();
+                }
+            }
+        });
+
+        mShowThreats = findViewById(R.id.threats_checkbox);
+        mShowThreats.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                mGame.setOverlayVisible(isChecked);
+            }
+        });
+
+        refreshButtons();
     }
 
-    private void enableSides(boolean enable) {
-        for (HexaView hexa : mHexas.values()) {
-            int q = hexa.getQ();
-            int r = hexa.getR();
-            if (r == mSize - 1) { // Bottom side
-                hexa.setEnabled(enable);
-            } else if (r == -(mSize - 1)) { // Top side
-                hexa.setEnabled(enable);
-            } else if (q == -(mSize - 1)) { // Bottom left side
-                hexa.setEnabled(enable);
-            } else if (q == mSize - 1) { // Top right side
-                hexa.setEnabled(enable);
-            } else if (r + q == mSize - 1) { // Bottom right side
-                hexa.setEnabled(enable);
-            } else if (r + q == -(mSize - 1)) { // Top left side
-                hexa.setEnabled(enable);
+    @Override
+    protected void onResume() {
+        super.onResume();
+        resumeAI();
+    }
+
+    @Override
+    protected void onPause() {
+        // No background CPU use, the search starts over when the game is back
+        stopAI();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mAI != null) {
+            mScheduler.shutdown();
+        }
+        if (mGamesWriter != null) {
+            try {
+                mGamesWriter.close();
+            } catch (IOException e) {
+                Log.e("Unlur", "Couldn't close the games file", e);
             }
+            mGamesWriter = null;
         }
+        super.onDestroy();
     }
 
-    @Override
-    public boolean onHexaSelected(HexaView hexa, int q, int r) {
-        if (mIsGameFinished) return false;
+    /**
+     * @return the solution table of the board size, or null if there is none in the app storage
+     */
+    private SolutionTable loadSolution() {
+        File file = new File(getFilesDir(), String.format(Locale.US, SOLUTION_FILE, mSize));
+        if (!file.exists()) return null;
+
+        try (InputStream input = new FileInputStream(file)) {
+            SolutionTable table = SolutionTable.read(input);
+            return table.getSize() == mSize ? table : null;
+        } catch (IOException e) {
+            Log.e("Unlur", "Couldn't read the solution table", e);
+            return null;
+        }
+    }
 
-        mLastMoves.add(hexa);
-        mUndo.setEnabled(true);
-        if (mIsBlackTurn) {
-            hexa.setColor(Color.BLACK);
+    /**
+     * Highlights a winning move of the player to move, looked up in the solution table.
+     */
+    private void showHint() {
+        if (mHintBoard == null) {
+            mHintBoard = new Board(mSize);
+            mHintMoves = new int[mBoard.getCellCount() + 1];
+        }
+        mHintBoard.copyFrom(mBoard);
+        int move = mSolution.getWinningMove(mHintBoard, mHintMoves);
+        if (move == TranspositionTable.NO_MOVE) {
+            Toast.makeText(this, "No known winning move", Toast.LENGTH_SHORT).show();
+        } else if (move == Board.STAY_BLACK) {
+            Toast.makeText(this, "Stay black", Toast.LENGTH_SHORT).show();
         } else {
-            hexa.setColor(Color.WHITE);
+            mGame.setHint(mBoard.getQ(move), mBoard.getR(move));
         }
-        hexa.setEnabled(false);
+    }
 
-        EndGame end = checkVictory(hexa);
-        if (end != EndGame.NOPE) {
-            mIsGameFinished = true;
-            mUndo.setEnabled(false);
-            Toast.makeText(this, (mIsBlackTurn ? "Black" : "White") + " " + (end == EndGame.VICTORY ? "Wins" : "Looses"), Toast.LENGTH_LONG).show();
-        } else {
-            if (mIsBlackChosen) {
-                mIsBlackTurn = !mIsBlackTurn;
-            }
+    private void refreshButtons() {
+        mStayBlack.setEnabled(canPlay() && mBoard.canStayBlack());
+        mUndo.setEnabled(mTimeline.canUndo());
+        mRedo.setEnabled(mTimeline.canRedo());
+        mHint.setEnabled(mSolution != null && canPlay() && !mBoard.isGameFinished());
+        mTimelineBar.setMax(mTimeline.getLength());
+        mTimelineBar.setProgress(mTimeline.getPly());
+    }
+
+    /**
+     * @return whether the human may move, which isn't the case when reviewing a move of the AI
+     */
+    private boolean canPlay() {
+        return !mIsAIThinking && (mAI == null || mBoard.getPlayer() != AI_PLAYER);
+    }
+
+    private void refreshBoard() {
+        for (int i = 0; i < mBoard.getCellCount(); i++) {
+            refreshHexa(mBoard.getCell(i));
         }
-        return true;
+        refreshButtons();
     }
 
-    @Override
-    public void onHexaCreated(HexaView hexa, int q, int r) {
-        Point p = new Point(q, r);
-        mHexas.put(p, hexa);
-        // Disable sides at the beginning of the game
-        if (r == mSize - 1) { // Bottom side
-            hexa.setEnabled(false);
-        } else if (r == -(mSize - 1)) { // Top side
-            hexa.setEnabled(false);
-        } else if (q == -(mSize - 1)) { // Bottom left side
-            hexa.setEnabled(false);
-        } else if (q == mSize - 1) { // Top right side
-            hexa.setEnabled(false);
-        } else if (r + q == mSize - 1) { // Bottom right side
-            hexa.setEnabled(false);
-        } else if (r + q == -(mSize - 1)) { // Top left side
-            hexa.setEnabled(false);
+    private void refreshHexa(int index) {
+        int q = mBoard.getQ(index);
+        int r = mBoard.getR(index);
+
+        switch (mBoard.getColor(index)) {
+            case Board.BLACK:
+                mGame.setHexaColor(q, r, Color.BLACK);
+                break;
+            case Board.WHITE:
+                mGame.setHexaColor(q, r, Color.WHITE);
+                break;
+            default:
+                mGame.setHexaColor(q, r, Color.GRAY);
+                break;
         }
+        mGame.setHexaEnabled(q, r, mBoard.isLegal(index));
+        mGame.setHexaOverlay(q, r, getOverlayColor(index));
     }
 
-    private EndGame checkVictory(HexaView hexa) {
-        boolean top, top_left, top_right, bottom, bottom_left, bottom_right;
-        top = top_left = top_right = bottom_right = bottom_left = bottom = false;
-
-        ArrayList<HexaView> connectedHexas = new ArrayList<>();
-        getNearbyHexasWithSameColor(hexa, connectedHexas);
-        for (HexaView hex : connectedHexas) {
-            int q = hex.getQ();
-            int r = hex.getR();
-            if (r == mSize - 1) { // Bottom side
-                bottom = true;
-                if (q == 0) {
-                    bottom_right = true;
-                } else if (q == -(mSize - 1)) {
-                    bottom_left = true;
-                }
-            } else if (r == -(mSize - 1)) { // Top side
-                top = true;
-                if (q == 0) {
-                    top_left = true;
-                } else if (q == mSize - 1) {
-                    top_right = true;
-                }
-            } else if (q == -(mSize - 1)) { // Bottom left side
-                bottom_left = true;
-                if (r == 0) {
-                    top_left = true;
-                }
-            } else if (q == mSize - 1) { // Top right side
-                top_right = true;
-                if (r == 0) {
-                    bottom_right = true;
-                }
-            } else if (r + q == mSize - 1) { // Bottom right side
-                bottom_right = true;
-            } else if (r + q == -(mSize - 1)) { // Top left side
-                top_left = true;
+    /**
+     * @return the threat color of the cell, transparent once the game is over or where nobody
+     * may play
+     */
+    private int getOverlayColor(int index) {
+        if (mBoard.isGameFinished()) return Color.TRANSPARENT;
+        // Sides can't be played before someone stays black, whatever they would do
+        boolean isPlayable = mBoard.isBlackChosen() || mBoard.isLegal(index);
+        return isPlayable ? getThreatColor(index) : Color.TRANSPARENT;
+    }
+
+    /**
+     * Sets the overlay of every cell again, the view only redraws the ones that changed.
+     */
+    private void refreshOverlays() {
+        for (int i = 0; i < mBoard.getCellCount(); i++) {
+            int index = mBoard.getCell(i);
+            mGame.setHexaOverlay(mBoard.getQ(index), mBoard.getR(index), getOverlayColor(index));
+        }
+    }
+
+    /**
+     * @return the color of the stone that would win on the cell, yellow for both, red if a stone
+     * of either color would lose there, or transparent
+     */
+    private int getThreatColor(int index) {
+        boolean blackWins = mThreats.getOutcome(index, Board.BLACK) == EndGame.VICTORY;
+        boolean whiteWins = mThreats.getOutcome(index, Board.WHITE) == EndGame.VICTORY;
+        if (blackWins && whiteWins) return Color.YELLOW;
+        if (blackWins) return Color.BLACK;
+        if (whiteWins) return Color.WHITE;
+        if (mThreats.getOutcome(index, Board.BLACK) == EndGame.DEFEAT || mThreats.getOutcome(index, Board.WHITE) == EndGame.DEFEAT) {
+            return Color.RED;
+        }
+        return Color.TRANSPARENT;
+    }
+
+    private void refreshThreats() {
+        for (int i = 0; i < mThreats.getChangeCount(); i++) {
+            refreshHexa(mThreats.getChange(i));
+        }
+    }
+
+    private void play(int move) {
+        mGame.clearHint();
+        if (mTimeline.canRedo() && mTimeline.getMove(mTimeline.getPly()) != move) {
+            // The rest of the timeline is dropped, this is another game
+            mIsGameSaved = false;
+        }
+        boolean isBlack = mBoard.isBlackTurn();
+        EndGame end = mTimeline.play(move);
+        mThreats.played(mBoard);
+        if (move == Board.STAY_BLACK || end != EndGame.NOPE) {
+            // Sides are now playable, or nothing is anymore
+            refreshBoard();
+        } else {
+            // The move cell is among the changes
+            refreshThreats();
+            refreshButtons();
+        }
+
+        if (end != EndGame.NOPE) {
+            if (!mIsGameSaved) {
+                saveGame();
+                mIsGameSaved = true;
+            }
+            Toast.makeText(this, (isBlack ? "Black" : "White") + " " + (end == EndGame.VICTORY ? "Wins" : "Looses"), Toast.LENGTH_LONG).show();
+        } else if (mAI != null && mBoard.getPlayer() == AI_PLAYER) {
+            startAI();
+        } else if (mAI != null) {
+            // Think about the replies while the human does
+            mScheduler.ponder(mBoard);
+        }
+    }
+
+    private void saveGame() {
+        try {
+            if (mGamesWriter == null) {
+                mGamesWriter = new GameDatabase.Writer(new File(getFilesDir(), GAMES_FILE));
             }
+            mGamesWriter.append(new GameRecord(mBoard));
+            // The app may be killed anytime once in the background
+            mGamesWriter.flush();
+        } catch (IOException e) {
+            Log.e("Unlur", "Couldn't save the game", e);
         }
+    }
 
-        boolean blackWins = (top && bottom_left && bottom_right) || (bottom && top_left && top_right);
-        boolean whiteWins = (top && bottom) || (top_left && bottom_right) || (top_right && bottom_left);
-        if (hexa.getColor() == Color.BLACK) {
-            if (blackWins) {
-                return EndGame.VICTORY;
-            } else if (whiteWins) {
-                return EndGame.DEFEAT;
+    /**
+     * Moves to a ply of the timeline, only the cells of the moves in between are refreshed
+     * along with every overlay.
+     */
+    private void seek(int ply) {
+        // Whatever the AI was searching or pondering on is about to change
+        stopAI();
+        mGame.clearHint();
+
+        int from = mTimeline.getPly();
+        boolean wasBlackChosen = mBoard.isBlackChosen();
+        boolean wasFinished = mBoard.isGameFinished();
+        boolean isFar = Math.abs(ply - from) >= Timeline.SNAPSHOT_INTERVAL;
+        if (isFar) {
+            // A snapshot may be restored, the threats are then computed again
+            mTimeline.seek(ply);
+            mThreats.reset(mBoard);
+        } else {
+            while (mTimeline.getPly() > ply) {
+                mTimeline.undo();
+                mThreats.undone(mBoard);
             }
+            while (mTimeline.getPly() < ply) {
+                mTimeline.redo();
+                mThreats.played(mBoard);
+            }
+        }
+        if (isFar || mBoard.isBlackChosen() != wasBlackChosen || mBoard.isGameFinished() != wasFinished) {
+            // Which cells are playable changed everywhere
+            refreshBoard();
         } else {
-            if (whiteWins) {
-                return EndGame.VICTORY;
-            } else if (blackWins) {
-                return EndGame.DEFEAT;
+            // No stay-black choice in between either, so these are all cells
+            for (int i = Math.min(from, ply); i < Math.max(from, ply); i++) {
+                refreshHexa(mTimeline.getMove(i));
             }
+            // The changes of the steps in between aren't kept, no stale threat may stay shown
+            refreshOverlays();
+            refreshButtons();
         }
-        return EndGame.NOPE;
+        resumeAI();
     }
 
-    private ArrayList<HexaView> getNearbyHexasWithSameColor(HexaView parent, ArrayList<HexaView> found) {
-        found.add(parent);
+    private void stopAI() {
+        if (mAI != null) {
+            mScheduler.cancel();
+            mIsAIThinking = false;
+        }
+    }
+
+    /**
+     * Starts the AI if it's its turn at the end of the timeline, otherwise ponders while the
+     * human thinks.
+     */
+    private void resumeAI() {
+        if (mAI == null || mBoard.isGameFinished()) return;
+
+        if (mBoard.getPlayer() != AI_PLAYER) {
+            mScheduler.ponder(mBoard);
+        } else if (!mTimeline.canRedo()) {
+            startAI();
+        }
+    }
 
-        int q = parent.getQ();
-        int r = parent.getR();
+    private void startAI() {
+        mIsAIThinking = true;
+        refreshButtons();
 
-        for (int x = -1; x <= 1; x++) {
-            for (int y = -1; y <= 1; y++) {
-                HexaView hex = getHexaAt(q + x, r + y);
-                if (hex != null && !(x == 0 && y == 0) && hex.getColor() == parent.getColor() && !found.contains(hex)) {
-                    Log.e("Unlur", "Nearby Hexa q=" + hex.getQ() + ", r=" + hex.getR() + ", color=" + hex.getColor());
-                    getNearbyHexasWithSameColor(hex, found);
+        final long start = System.currentTimeMillis();
+        mScheduler.search(mBoard, new SearchScheduler.Listener() {
+            @Override
+            public void onMoveSelected(int move) {
+                if (isDestroyed()) return;
+                if (BuildConfig.DEBUG) {
+                    Log.i("Unlur", "AI played in " + (System.currentTimeMillis() - start) + " ms, last MCTS search: " + mMonteCarlo.getLastStats());
                 }
+                mIsAIThinking = false;
+                play(move);
             }
-        }
+        });
+    }
+
+    @Override
+    public boolean onHexaSelected(int q, int r) {
+        if (!canPlay() || !mBoard.isLegal(q, r)) return false;
 
-        return found;
+        play(mBoard.index(q, r));
+        return true;
     }
 
-    private HexaView getHexaAt(int q, int r) {
-        Point p = new Point(q, r);
-        if (mHexas.containsKey(p)) {
-            return mHexas.get(p);
-        }
-        return null;
+    @Override
+    public void onHexaCreated(int q, int r) {
+        refreshHexa(mBoard.index(q, r));
     }
 }
@@ -18,147 +18,552 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>
 */
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.util.AttributeSet;
-import android.view.ViewGroup;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import android.view.ViewConfiguration;
 
 import androidx.annotation.Nullable;
 
-public class GameView extends ViewGroup {
+/**
+ * Draws the whole board by itself: a single hexagon path is built for the current cell size
+ * and translated to each cell center, so there is no child view per cell.
+ * Cells are numbered row by row, from top to bottom and left to right.
+ * <p>
+ * Cells are painted into an offscreen bitmap which is what gets drawn on each frame: changing
+ * a cell color only repaints that cell into the bitmap and invalidates its bounds, and the
+ * pressed cell highlight is drawn over the bitmap without touching it.
+ * <p>
+ * Cells may also carry an overlay, a dot of another color drawn over them when overlays are shown.
+ * <p>
+ * Boards whose cells wouldn't be wide enough to tap once fitted in the view are laid out
+ * larger than the view instead, and can be zoomed by pinching and moved by dragging. Such a
+ * board has no bitmap, which would be too large: each frame only draws the cells intersecting
+ * the viewport, so its cost depends on how many cells are visible rather than on the board size.
+ */
+public class GameView extends View {
     public static int HEX_COUNT = 6;
+    // Narrowest cells that can still be tapped, and widest ones when fully zoomed in
+    private static final int MIN_HEXA_WIDTH_DP = 22;
+    private static final int MAX_HEXA_WIDTH_DP = 80;
 
-    private Context mContext;
     private int mBoardGameSize;
-    private int mHexaWidth, mHexaHeight, mHexaSide, mLines;
-    private boolean mSidesEnabled;
+    private int mLines;
     private HexaListener mListener;
 
+    private int mCellCount;
+    private int[] mRowStart;
+    private int[] mCellQ, mCellR;
+    private int[] mColors;
+    private int[] mOverlays;
+    private boolean mIsOverlayVisible;
+    private boolean[] mEnabled;
+
+    private BoardGeometry mGeometry;
+    // Area the geometry was computed for, which large boards overflow
+    private int mLayoutWidth, mLayoutHeight;
+    private Paint mPaint;
+    private final int[] mAxial = new int[2];
+
+    private Bitmap mBoardBitmap;
+    private Canvas mBoardCanvas;
+    // Cells whose color changed since they were last painted into the bitmap
+    private int[] mDirtyCells;
+    private boolean[] mIsDirty;
+    private int mDirtyCount;
+    private boolean mIsBoardCleared;
+
+    private int mPressedCell;
+    private int mHintCell;
+
+    private boolean mIsLargeBoard;
+    // Large boards are drawn scaled then moved by the pan, in pixels of the view
+    private float mScale = 1, mMinScale = 1;
+    private float mPanX, mPanY;
+    private int[] mVisibleCells;
+    private ScaleGestureDetector mScaleDetector;
+    private int mTouchSlop;
+    private float mDownX, mDownY, mLastX, mLastY;
+    private boolean mIsPanning;
+
     public GameView(Context context, int size) {
         super(context);
-        mContext = context;
         mBoardGameSize = size;
         init();
     }
 
     public GameView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
-        mContext = context;
         mBoardGameSize = HEX_COUNT;
         init();
     }
 
     public GameView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        mContext = context;
         mBoardGameSize = HEX_COUNT;
         init();
     }
 
     public GameView(Context context, @Nullable AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
-        mContext = context;
         mBoardGameSize = HEX_COUNT;
         init();
     }
 
+    /**
+     * Changes the board size, every cell of the new board is then registered once to the listener.
+     */
     public void setSize(int newSize) {
         mBoardGameSize = newSize;
         init();
+        requestLayout();
         invalidate();
+
+        if (mListener != null) {
+            for (int cell = 0; cell < mCellCount; cell++) {
+                mListener.onHexaCreated(mCellQ[cell], mCellR[cell]);
+            }
+        }
     }
 
     public void setListener(HexaListener listener) {
         mListener = listener;
     }
 
+    public void setHexaColor(int q, int r, int color) {
+        int cell = getCell(q, r);
+        if (mColors[cell] != color) {
+            mColors[cell] = color;
+            markDirty(cell);
+        }
+    }
+
+    public int getHexaColor(int q, int r) {
+        return mColors[getCell(q, r)];
+    }
+
+    /**
+     * @param color color of the dot drawn over the cell, or Color.TRANSPARENT for none
+     */
+    public void setHexaOverlay(int q, int r, int color) {
+        int cell = getCell(q, r);
+        if (mOverlays[cell] != color) {
+            mOverlays[cell] = color;
+            if (mIsOverlayVisible) {
+                markDirty(cell);
+            }
+        }
+    }
+
+    public void setOverlayVisible(boolean visible) {
+        if (visible != mIsOverlayVisible) {
+            mIsOverlayVisible = visible;
+            markAllDirty();
+        }
+    }
+
+    public void setHexaEnabled(int q, int r, boolean enabled) {
+        int cell = getCell(q, r);
+        mEnabled[cell] = enabled;
+        if (!enabled && cell == mPressedCell) {
+            setPressedCell(-1);
+        }
+    }
+
+    public boolean isHexaEnabled(int q, int r) {
+        return mEnabled[getCell(q, r)];
+    }
+
+    /**
+     * Highlights a cell over its color, like the pressed one, until the hint is cleared.
+     */
+    public void setHint(int q, int r) {
+        clearHint();
+        mHintCell = getCell(q, r);
+        invalidateCell(mHintCell);
+    }
+
+    public void clearHint() {
+        if (mHintCell >= 0) {
+            invalidateCell(mHintCell);
+            mHintCell = -1;
+        }
+    }
+
     private void init() {
-        // This can probably be improved...
-        int max = mBoardGameSize * 2 - 1;
-        int sum = 0;
-        for (int i = mBoardGameSize; i <= max; i++) {
-            sum += i;
+        if (mPaint == null) {
+            mPaint = new Paint();
+            mPaint.setStyle(Paint.Style.FILL);
+            mTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+            mScaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                @Override
+                public boolean onScale(ScaleGestureDetector detector) {
+                    zoom(detector.getScaleFactor(), detector.getFocusX() - getPaddingLeft(), detector.getFocusY() - getPaddingTop());
+                    return true;
+                }
+            });
         }
-        for (int i = max - 1; i >= mBoardGameSize; i--) {
-            sum += i;
+
+        mLines = mBoardGameSize * 2 - 1;
+        mCellCount = 3 * mBoardGameSize * mBoardGameSize - 3 * mBoardGameSize + 1;
+        mRowStart = new int[mLines];
+        mCellQ = new int[mCellCount];
+        mCellR = new int[mCellCount];
+        mColors = new int[mCellCount];
+        mOverlays = new int[mCellCount];
+        mEnabled = new boolean[mCellCount];
+        mDirtyCells = new int[mCellCount];
+        mIsDirty = new boolean[mCellCount];
+        mDirtyCount = 0;
+        mGeometry = null;
+        mVisibleCells = new int[mCellCount];
+
+        int cell = 0;
+        for (int row = 0; row < mLines; row++) {
+            int r = row - mBoardGameSize + 1;
+            mRowStart[row] = cell;
+            for (int q = getFirstQ(r); q <= getLastQ(r); q++) {
+                mCellQ[cell] = q;
+                mCellR[cell] = r;
+                mColors[cell] = Color.GRAY;
+                mEnabled[cell] = true;
+                cell++;
+            }
         }
+        mPressedCell = -1;
+        mHintCell = -1;
+    }
+
+    private int getFirstQ(int r) {
+        return Math.max(1 - mBoardGameSize, 1 - mBoardGameSize - r);
+    }
 
-        for (int i = 0; i < sum; i++) {
-            addView(new HexaView(mContext));
+    private int getLastQ(int r) {
+        return Math.min(mBoardGameSize - 1, mBoardGameSize - 1 - r);
+    }
+
+    private int getCell(int q, int r) {
+        return mRowStart[r + mBoardGameSize - 1] + q - getFirstQ(r);
+    }
+
+    private void markDirty(int cell) {
+        if (!mIsLargeBoard && !mIsDirty[cell]) {
+            mIsDirty[cell] = true;
+            mDirtyCells[mDirtyCount++] = cell;
+        }
+        invalidateCell(cell);
+    }
+
+    private void markAllDirty() {
+        if (mIsLargeBoard) {
+            invalidate();
+            return;
+        }
+        for (int cell = 0; cell < mCellCount; cell++) {
+            mIsDirty[cell] = true;
+            mDirtyCells[cell] = cell;
         }
+        mDirtyCount = mCellCount;
+        mIsBoardCleared = true;
+        invalidate();
+    }
+
+    private void invalidateCell(int cell) {
+        if (mGeometry == null) return;
+
+        if (mIsLargeBoard) {
+            float left = getPaddingLeft() + mPanX + mGeometry.getCellLeft(cell) * mScale;
+            float top = getPaddingTop() + mPanY + mGeometry.getCellTop(cell) * mScale;
+            invalidate((int) left, (int) top, (int) Math.ceil(left + mGeometry.getHexaWidth() * mScale),
+                    (int) Math.ceil(top + mGeometry.getHexaHeight() * mScale));
+            return;
+        }
+        int left = getPaddingLeft() + mGeometry.getCellLeft(cell);
+        int top = getPaddingTop() + mGeometry.getCellTop(cell);
+        invalidate(left, top, left + mGeometry.getHexaWidth(), top + mGeometry.getHexaHeight());
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-        final int childLeft = this.getPaddingLeft();
-        final int childTop = this.getPaddingTop();
-        final int childRight = this.getMeasuredWidth() - this.getPaddingRight();
-        final int childBottom = this.getMeasuredHeight() - this.getPaddingBottom();
-        final int childWidth = childRight - childLeft;
-        final int childHeight = childBottom - childTop;
-
-        mLines = mBoardGameSize * 2 - 1;
-        final int hexaMaxSize = childWidth / mLines;
+        final int childWidth = this.getMeasuredWidth() - this.getPaddingLeft() - this.getPaddingRight();
+        final int childHeight = this.getMeasuredHeight() - this.getPaddingTop() - this.getPaddingBottom();
 
-        HexaView hexa = (HexaView) getChildAt(0);
-        hexa.measure(MeasureSpec.makeMeasureSpec(hexaMaxSize, MeasureSpec.EXACTLY),
-                MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.AT_MOST));
+        if (mGeometry != null && mLayoutWidth == childWidth && mLayoutHeight == childHeight) {
+            // Nothing moved
+            return;
+        }
+        mLayoutWidth = childWidth;
+        mLayoutHeight = childHeight;
+
+        float density = getResources().getDisplayMetrics().density;
+        mIsLargeBoard = childWidth / mLines < MIN_HEXA_WIDTH_DP * density;
+        if (mIsLargeBoard) {
+            // Laid out at the largest zoom, with the aspect ratio of the view
+            int width = Math.round(mLines * MAX_HEXA_WIDTH_DP * density);
+            int height = (int) ((long) width * childHeight / Math.max(1, childWidth));
+            mGeometry = BoardGeometry.get(mBoardGameSize, width, height);
+            mMinScale = Math.min(1f, (float) childWidth / width);
+            // Starts zoomed out on the whole board, centered
+            mScale = mMinScale;
+            mPanX = (childWidth - width * mScale) / 2;
+            mPanY = (childHeight - height * mScale) / 2;
+            clampPan();
+        } else {
+            mGeometry = BoardGeometry.get(mBoardGameSize, childWidth, childHeight);
+            mScale = mMinScale = 1;
+            mPanX = mPanY = 0;
+        }
+        // Cells may have moved, the whole bitmap has to be painted again
+        markAllDirty();
+    }
 
-        mHexaWidth = hexa.getMeasuredWidth();
-        mHexaHeight = hexa.getMeasuredHeight();
-        mHexaSide = Math.round(Math.round(mHexaWidth / Math.sqrt(3)));
-        // Since we don't want any space between the hex, the real size of a hex is 3/2 * it's side
-        // (top hat + a side)
-        int hexaFakeHeight = 3 * mHexaSide / 2;
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mBoardBitmap != null) {
+            mBoardBitmap.recycle();
+            mBoardBitmap = null;
+            mBoardCanvas = null;
+        }
+    }
 
-        int marginTop = (childHeight - (hexaFakeHeight * mLines)) / 2;
+    @Override
+    public void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mGeometry == null || getWidth() == 0 || getHeight() == 0) return;
 
-        int childIndex = 0;
-        for (int i = 0; i < mBoardGameSize; i++) {
-            int widthCount = mBoardGameSize + i;
-            int marginLeft = (childWidth - (widthCount * mHexaWidth)) / 2;
-            for (int j = 0; j < widthCount; j++) {
-                hexa = (HexaView) getChildAt(childIndex);
-                hexa.setListener(mListener);
+        if (mIsLargeBoard) {
+            drawVisibleCells(canvas);
+            return;
+        }
+        if (mBoardBitmap == null || mBoardBitmap.getWidth() != getWidth() || mBoardBitmap.getHeight() != getHeight()) {
+            if (mBoardBitmap != null) {
+                mBoardBitmap.recycle();
+            }
+            mBoardBitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            mBoardCanvas = new Canvas(mBoardBitmap);
+            markAllDirty();
+        }
 
-                hexa.measure(MeasureSpec.makeMeasureSpec(hexaMaxSize, MeasureSpec.EXACTLY),
-                        MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.AT_MOST));
+        if (mIsBoardCleared) {
+            mBoardBitmap.eraseColor(Color.TRANSPARENT);
+            mIsBoardCleared = false;
+        }
+        // Only repaint what changed since the last frame
+        for (int i = 0; i < mDirtyCount; i++) {
+            int cell = mDirtyCells[i];
+            mIsDirty[cell] = false;
+            drawCell(mBoardCanvas, cell, mColors[cell]);
+            if (mIsOverlayVisible && mOverlays[cell] != Color.TRANSPARENT) {
+                drawOverlay(mBoardCanvas, cell, mOverlays[cell]);
+            }
+        }
+        mDirtyCount = 0;
 
-                int spaceToRemove = i * (mHexaHeight - hexaFakeHeight);
+        canvas.drawBitmap(mBoardBitmap, 0, 0, null);
+        if (mHintCell >= 0 && mHintCell != mPressedCell) {
+            drawCell(canvas, mHintCell, Color.BLUE);
+        }
+        if (mPressedCell >= 0) {
+            drawCell(canvas, mPressedCell, Color.GREEN);
+        }
+    }
 
-                hexa.layout(marginLeft + j * mHexaWidth,
-                        marginTop - spaceToRemove + i * mHexaHeight,
-                        marginLeft + (j + 1) * mHexaWidth,
-                        marginTop - spaceToRemove + (i + 1) * mHexaHeight);
-                childIndex += 1;
+    private void drawVisibleCells(Canvas canvas) {
+        if (mBoardBitmap != null) {
+            mBoardBitmap.recycle();
+            mBoardBitmap = null;
+            mBoardCanvas = null;
+        }
 
-                hexa.setCoords(mBoardGameSize - widthCount + j, i - mBoardGameSize + 1);
+        // Viewport in the coordinates of the geometry
+        float left = -mPanX / mScale;
+        float top = -mPanY / mScale;
+        float right = left + mLayoutWidth / mScale;
+        float bottom = top + mLayoutHeight / mScale;
+        int count = mGeometry.getCellsIn(left, top, right, bottom, mVisibleCells);
+
+        canvas.save();
+        canvas.clipRect(getPaddingLeft(), getPaddingTop(), getPaddingLeft() + mLayoutWidth, getPaddingTop() + mLayoutHeight);
+        canvas.translate(getPaddingLeft() + mPanX, getPaddingTop() + mPanY);
+        canvas.scale(mScale, mScale);
+        // Cells add the padding themselves
+        canvas.translate(-getPaddingLeft(), -getPaddingTop());
+        for (int i = 0; i < count; i++) {
+            int cell = mVisibleCells[i];
+            drawCell(canvas, cell, cell == mPressedCell ? Color.GREEN : cell == mHintCell ? Color.BLUE : mColors[cell]);
+            if (mIsOverlayVisible && mOverlays[cell] != Color.TRANSPARENT) {
+                drawOverlay(canvas, cell, mOverlays[cell]);
             }
         }
+        canvas.restore();
+    }
+
+    /**
+     * Scales a large board around a point of the view, keeping that point over the same cell.
+     */
+    private void zoom(float factor, float focusX, float focusY) {
+        float scale = Math.max(mMinScale, Math.min(1f, mScale * factor));
+        mPanX = focusX - (focusX - mPanX) * scale / mScale;
+        mPanY = focusY - (focusY - mPanY) * scale / mScale;
+        mScale = scale;
+        clampPan();
+        invalidate();
+    }
 
-        marginTop += mBoardGameSize * hexaFakeHeight;
+    private void pan(float dx, float dy) {
+        mPanX += dx;
+        mPanY += dy;
+        clampPan();
+        invalidate();
+    }
+
+    /**
+     * Keeps the board over the view, centered along the directions where it is smaller than the view.
+     */
+    private void clampPan() {
+        mPanX = clampPan(mPanX, mGeometry.getWidth() * mScale, mLayoutWidth);
+        mPanY = clampPan(mPanY, mGeometry.getHeight() * mScale, mLayoutHeight);
+    }
 
-        for (int i = mBoardGameSize - 1; i > 0; i--) {
-            int widthCount = mLines - (mBoardGameSize - i);
-            int marginLeft = (childWidth - (widthCount * mHexaWidth)) / 2;
-            for (int j = widthCount; j > 0; j--) {
-                hexa = (HexaView) getChildAt(childIndex);
-                hexa.setListener(mListener);
+    private static float clampPan(float pan, float content, float view) {
+        if (content <= view) return (view - content) / 2;
+        return Math.max(view - content, Math.min(0, pan));
+    }
 
-                hexa.measure(MeasureSpec.makeMeasureSpec(hexaMaxSize, MeasureSpec.EXACTLY),
-                        MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.AT_MOST));
+    private void drawCell(Canvas canvas, int cell, int color) {
+        canvas.save();
+        canvas.translate(getPaddingLeft() + mGeometry.getCellCenterX(cell), getPaddingTop() + mGeometry.getCellCenterY(cell));
+        mPaint.setColor(Color.BLACK);
+        canvas.drawPath(mGeometry.getHexagonContourPath(), mPaint);
+        mPaint.setColor(color);
+        canvas.drawPath(mGeometry.getHexagonPath(), mPaint);
+        canvas.restore();
+    }
 
-                int spaceToRemove = (mBoardGameSize - 1 - i) * (mHexaHeight - hexaFakeHeight);
+    private void drawOverlay(Canvas canvas, int cell, int color) {
+        mPaint.setColor(color);
+        canvas.drawCircle(getPaddingLeft() + mGeometry.getCellCenterX(cell), getPaddingTop() + mGeometry.getCellCenterY(cell),
+                mGeometry.getHexaWidth() / 6f, mPaint);
+    }
 
-                hexa.layout(marginLeft + (widthCount - j) * mHexaWidth,
-                        marginTop - spaceToRemove + (mBoardGameSize - 1 - i) * mHexaHeight,
-                        marginLeft + ((widthCount - j) + 1) * mHexaWidth,
-                        marginTop - spaceToRemove + (mBoardGameSize - i) * mHexaHeight);
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mIsLargeBoard) {
+            return onLargeBoardTouchEvent(event);
+        }
 
-                childIndex += 1;
+        int cell = getCellAt(event.getX(), event.getY());
+        if (cell >= 0 && !mEnabled[cell]) {
+            cell = -1;
+        }
 
-                hexa.setCoords(1 - mBoardGameSize + (widthCount - j), mBoardGameSize - i);
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                if (cell < 0) return false;
+                setPressedCell(cell);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                // The highlight follows the finger from cell to cell
+                setPressedCell(cell);
+                break;
+            case MotionEvent.ACTION_UP:
+                setPressedCell(-1);
+                if (cell >= 0 && mListener != null) {
+                    mListener.onHexaSelected(mCellQ[cell], mCellR[cell]);
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                setPressedCell(-1);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Taps select a cell like on other boards, but a finger moving further than a tap pans the
+     * board and two fingers zoom it, without selecting anything.
+     */
+    private boolean onLargeBoardTouchEvent(MotionEvent event) {
+        mScaleDetector.onTouchEvent(event);
+        float x = event.getX(), y = event.getY();
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mDownX = mLastX = x;
+                mDownY = mLastY = y;
+                mIsPanning = false;
+                setPressedCell(getEnabledCellAt(x, y));
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                mIsPanning = true;
+                setPressedCell(-1);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (!mIsPanning && Math.hypot(x - mDownX, y - mDownY) > mTouchSlop) {
+                    mIsPanning = true;
+                    setPressedCell(-1);
+                }
+                if (mIsPanning && !mScaleDetector.isInProgress() && event.getPointerCount() == 1 && !Float.isNaN(mLastX)) {
+                    pan(x - mLastX, y - mLastY);
+                }
+                mLastX = x;
+                mLastY = y;
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                // The remaining finger goes on panning from where it is
+                mLastX = Float.NaN;
+                break;
+            case MotionEvent.ACTION_UP:
+                setPressedCell(-1);
+                int cell = getEnabledCellAt(x, y);
+                if (!mIsPanning && cell >= 0 && mListener != null) {
+                    mListener.onHexaSelected(mCellQ[cell], mCellR[cell]);
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                setPressedCell(-1);
+                break;
+        }
+        return true;
+    }
+
+    private int getEnabledCellAt(float x, float y) {
+        int cell = getCellAt(x, y);
+        return cell >= 0 && mEnabled[cell] ? cell : -1;
+    }
+
+    private void setPressedCell(int cell) {
+        if (cell != mPressedCell) {
+            if (mPressedCell >= 0) {
+                invalidateCell(mPressedCell);
             }
+            mPressedCell = cell;
+            if (cell >= 0) {
+                invalidateCell(cell);
+            }
+        }
+    }
+
+    /**
+     * @return the cell under the point, or -1 if it's outside of the board
+     */
+    private int getCellAt(float x, float y) {
+        x -= getPaddingLeft();
+        y -= getPaddingTop();
+        if (mIsLargeBoard) {
+            x = (x - mPanX) / mScale;
+            y = (y - mPanY) / mScale;
+        }
+        if (mGeometry == null || !mGeometry.getAxialAt(x, y, mAxial)) {
+            return -1;
         }
+        return getCell(mAxial[0], mAxial[1]);
     }
 
     @Override
@@ -1,6 +1,6 @@
 package com.viish.unlur;
 
 public interface HexaListener {
-    void onHexaCreated(HexaView hexa, int q, int r);
-    boolean onHexaSelected(HexaView hexa, int q, int r);
+    void onHexaCreated(int q, int r);
+    boolean onHexaSelected(int q, int r);
 }
@@ -21,6 +21,7 @@ import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
+import android.widget.CheckBox;
 import android.widget.SeekBar;
 import android.widget.TextView;
 
@@ -29,6 +30,7 @@ import androidx.annotation.Nullable;
 public class Menu extends Activity {
     private TextView mBoardSizeLabel;
     private SeekBar mBoardSize;
+    private CheckBox mAgainstAI;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -40,6 +42,7 @@ public class Menu extends Activity {
             public void onClick(View v) {
                 Intent intent = new Intent(Menu.this, Game.class);
                 intent.putExtra("BoardSize", Integer.valueOf(mBoardSizeLabel.getText().toString()));
+                intent.putExtra("AgainstAI", mAgainstAI.isChecked());
                 startActivity(intent);
             }
         });
@@ -64,5 +67,7 @@ public class Menu extends Activity {
 
         mBoardSizeLabel = findViewById(R.id.menu_text_board_size);
         mBoardSizeLabel.setText(String.valueOf(mBoardSize.getProgress()));
+
+        mAgainstAI = findViewById(R.id.menu_against_ai);
     }
 }
@@ -0,0 +1,98 @@
+package com.viish.unlur.benchmarks;
+
+/*
+DistanceBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.ai.DistanceEvaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Plays a whole recorded game then takes every move back, keeping the distance maps of the
+ * evaluator up to date either incrementally or by computing them again after each move. The
+ * board alone, whose union-find victory check runs in every case, is the baseline.
+ */
+@State(Scope.Thread)
+public class DistanceBenchmark {
+    private static final int GAMES = 64;
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20"})
+    public int mSize;
+
+    private RecordedGames mGames;
+    private Board mBoard;
+    private DistanceEvaluator mEvaluator;
+    private int mGame;
+
+    @Setup
+    public void setUp() {
+        mGames = new RecordedGames(mSize, GAMES, 42);
+        mBoard = new Board(mSize);
+        mEvaluator = new DistanceEvaluator();
+        mEvaluator.reset(mBoard);
+    }
+
+    @Benchmark
+    public void board(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+        }
+        for (int i = 0; i < moves.length; i++) {
+            mBoard.undo();
+        }
+    }
+
+    @Benchmark
+    public void incremental(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+            mEvaluator.played(mBoard, move);
+        }
+        blackhole.consume(mEvaluator.getNeed(Board.BLACK));
+        for (int i = 0; i < moves.length; i++) {
+            mEvaluator.undone(mBoard, mBoard.undo());
+        }
+    }
+
+    @Benchmark
+    public void recompute(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+            mEvaluator.reset(mBoard);
+        }
+        blackhole.consume(mEvaluator.getNeed(Board.BLACK));
+        for (int i = 0; i < moves.length; i++) {
+            mBoard.undo();
+            mEvaluator.reset(mBoard);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.viish.unlur.benchmarks;
+
+/*
+FloodFillBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.FloodFill;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Looks for a shape of either color from scratch in the position before the last move of a
+ * recorded game, where nobody has one yet so every group has to be found. The recursive
+ * version visits cell by cell like getNearbyHexasWithSameColor in Game used to, with marks
+ * instead of list lookups.
+ */
+@State(Scope.Thread)
+public class FloodFillBenchmark {
+    private static final int GAMES = 16;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17",
+            "18", "19", "20", "21", "22", "23", "24", "25", "26", "27", "28", "29", "30", "31", "32", "33",
+            "34", "35", "36", "37", "38", "39", "40", "41", "42", "43", "44", "45", "46", "47", "48", "49", "50"})
+    public int mSize;
+
+    private Board[] mPositions;
+    private FloodFill mFloodFill;
+    private int[] mMarks;
+    private int mMark;
+    private int mPosition;
+
+    @Setup
+    public void setUp() {
+        RecordedGames games = new RecordedGames(mSize, GAMES, 42);
+        mPositions = new Board[GAMES];
+        for (int game = 0; game < GAMES; game++) {
+            int[] moves = games.mMoves[game];
+            mPositions[game] = new Board(mSize);
+            for (int i = 0; i < moves.length - 1; i++) {
+                mPositions[game].play(moves[i]);
+            }
+        }
+        mFloodFill = new FloodFill(mSize);
+        mMarks = new int[mPositions[0].getIndexCount()];
+    }
+
+    @Benchmark
+    public void bitParallel(Blackhole blackhole) {
+        Board board = mPositions[mPosition];
+        mPosition = (mPosition + 1) % GAMES;
+
+        blackhole.consume(mFloodFill.hasShape(board, Board.BLACK));
+        blackhole.consume(mFloodFill.hasShape(board, Board.WHITE));
+    }
+
+    @Benchmark
+    public void recursive(Blackhole blackhole) {
+        Board board = mPositions[mPosition];
+        mPosition = (mPosition + 1) % GAMES;
+
+        blackhole.consume(hasShape(board, Board.BLACK));
+        blackhole.consume(hasShape(board, Board.WHITE));
+    }
+
+    private boolean hasShape(Board board, int color) {
+        mMark++;
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int index = board.getCell(n);
+            if (board.getColor(index) == color && mMarks[index] != mMark) {
+                int sides = getGroupSides(board, index, color);
+                if (color == Board.BLACK ? Board.isBlackShape(sides) : Board.isWhiteShape(sides)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int getGroupSides(Board board, int index, int color) {
+        mMarks[index] = mMark;
+        int sides = board.getSides(index);
+        for (int d = 0; d < 6; d++) {
+            int next = board.getNeighbour(index, d);
+            if (next >= 0 && mMarks[next] != mMark && board.getColor(next) == color) {
+                sides |= getGroupSides(board, next, color);
+            }
+        }
+        return sides;
+    }
+}
@@ -0,0 +1,190 @@
+package com.viish.unlur.benchmarks;
+
+/*
+LegacyBoard.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.EndGame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copy of the rules as Game implemented them before the engine existed: cells in a HashMap
+ * keyed by Point, and a recursive flood fill with ArrayList.contains for the victory check.
+ * Android classes are replaced by look-alikes, and the log message of each visited cell is
+ * still built but not printed.
+ */
+public class LegacyBoard {
+    static final int GRAY = 0;
+    static final int BLACK = 1;
+    static final int WHITE = 2;
+
+    /**
+     * Same equals and hashCode as android.graphics.Point.
+     */
+    static class Point {
+        final int x, y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Point point = (Point) o;
+            return x == point.x && y == point.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + y;
+        }
+    }
+
+    static class Hexa {
+        final int mQ, mR;
+        int mColor = GRAY;
+
+        Hexa(int q, int r) {
+            mQ = q;
+            mR = r;
+        }
+    }
+
+    private final int mSize;
+    private final Map<Point, Hexa> mHexas = new HashMap<>();
+    private final ArrayList<Hexa> mLastMoves = new ArrayList<>();
+    String mLastLog;
+
+    public LegacyBoard(int size) {
+        mSize = size;
+        int max = size - 1;
+        for (int r = -max; r <= max; r++) {
+            for (int q = -max; q <= max; q++) {
+                if (Math.abs(q + r) <= max) {
+                    mHexas.put(new Point(q, r), new Hexa(q, r));
+                }
+            }
+        }
+    }
+
+    public EndGame play(int q, int r, boolean isBlack) {
+        Hexa hexa = getHexaAt(q, r);
+        mLastMoves.add(hexa);
+        hexa.mColor = isBlack ? BLACK : WHITE;
+        return checkVictory(hexa);
+    }
+
+    public void undo() {
+        Hexa hexa = mLastMoves.remove(mLastMoves.size() - 1);
+        hexa.mColor = GRAY;
+    }
+
+    public int getColor(int q, int r) {
+        Hexa hexa = getHexaAt(q, r);
+        return hexa == null ? GRAY : hexa.mColor;
+    }
+
+    private EndGame checkVictory(Hexa hexa) {
+        boolean top, top_left, top_right, bottom, bottom_left, bottom_right;
+        top = top_left = top_right = bottom_right = bottom_left = bottom = false;
+
+        ArrayList<Hexa> connectedHexas = new ArrayList<>();
+        getNearbyHexasWithSameColor(hexa, connectedHexas);
+        for (Hexa hex : connectedHexas) {
+            int q = hex.mQ;
+            int r = hex.mR;
+            if (r == mSize - 1) { // Bottom side
+                bottom = true;
+                if (q == 0) {
+                    bottom_right = true;
+                } else if (q == -(mSize - 1)) {
+                    bottom_left = true;
+                }
+            } else if (r == -(mSize - 1)) { // Top side
+                top = true;
+                if (q == 0) {
+                    top_left = true;
+                } else if (q == mSize - 1) {
+                    top_right = true;
+                }
+            } else if (q == -(mSize - 1)) { // Bottom left side
+                bottom_left = true;
+                if (r == 0) {
+                    top_left = true;
+                }
+            } else if (q == mSize - 1) { // Top right side
+                top_right = true;
+                if (r == 0) {
+                    bottom_right = true;
+                }
+            } else if (r + q == mSize - 1) { // Bottom right side
+                bottom_right = true;
+            } else if (r + q == -(mSize - 1)) { // Top left side
+                top_left = true;
+            }
+        }
+
+        boolean blackWins = (top && bottom_left && bottom_right) || (bottom && top_left && top_right);
+        boolean whiteWins = (top && bottom) || (top_left && bottom_right) || (top_right && bottom_left);
+        if (hexa.mColor == BLACK) {
+            if (blackWins) {
+                return EndGame.VICTORY;
+            } else if (whiteWins) {
+                return EndGame.DEFEAT;
+            }
+        } else {
+            if (whiteWins) {
+                return EndGame.VICTORY;
+            } else if (blackWins) {
+                return EndGame.DEFEAT;
+            }
+        }
+        return EndGame.NOPE;
+    }
+
+    private ArrayList<Hexa> getNearbyHexasWithSameColor(Hexa parent, ArrayList<Hexa> found) {
+        found.add(parent);
+
+        int q = parent.mQ;
+        int r = parent.mR;
+
+        for (int x = -1; x <= 1; x++) {
+            for (int y = -1; y <= 1; y++) {
+                Hexa hex = getHexaAt(q + x, r + y);
+                if (hex != null && !(x == 0 && y == 0) && hex.mColor == parent.mColor && !found.contains(hex)) {
+                    mLastLog = "Nearby Hexa q=" + hex.mQ + ", r=" + hex.mR + ", color=" + hex.mColor;
+                    getNearbyHexasWithSameColor(hex, found);
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private Hexa getHexaAt(int q, int r) {
+        Point p = new Point(q, r);
+        if (mHexas.containsKey(p)) {
+            return mHexas.get(p);
+        }
+        return null;
+    }
+}
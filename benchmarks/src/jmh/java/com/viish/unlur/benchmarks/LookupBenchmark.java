@@ -0,0 +1,79 @@
+package com.viish.unlur.benchmarks;
+
+/*
+LookupBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reads the color of every cell of a mid-game position: a new Point and two HashMap lookups
+ * per cell in the legacy version, an index computation and a bit test with the engine board.
+ */
+@State(Scope.Thread)
+public class LookupBenchmark {
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20"})
+    public int mSize;
+
+    private Board mBoard;
+    private LegacyBoard mLegacy;
+
+    @Setup
+    public void setUp() {
+        RecordedGames games = new RecordedGames(mSize, 1, 42);
+        mBoard = new Board(mSize);
+        mLegacy = new LegacyBoard(mSize);
+        int[] moves = games.mMoves[0];
+        for (int i = 0; i < moves.length / 2; i++) {
+            mBoard.play(moves[i]);
+        }
+        for (int i = 0; i < games.mQ[0].length / 2; i++) {
+            mLegacy.play(games.mQ[0][i], games.mR[0][i], games.mIsBlack[0][i]);
+        }
+    }
+
+    @Benchmark
+    public int board() {
+        int max = mSize - 1;
+        int sum = 0;
+        for (int r = -max; r <= max; r++) {
+            for (int q = -max; q <= max; q++) {
+                if (mBoard.isValid(q, r)) {
+                    sum += mBoard.getColor(mBoard.index(q, r));
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int legacy() {
+        int max = mSize - 1;
+        int sum = 0;
+        for (int r = -max; r <= max; r++) {
+            for (int q = -max; q <= max; q++) {
+                sum += mLegacy.getColor(q, r);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,66 @@
+package com.viish.unlur.benchmarks;
+
+/*
+PlayoutBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.ai.PatternPlayout;
+import com.viish.unlur.engine.ai.RandomPlayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * One playout from the empty board, as run by the Monte Carlo player.
+ */
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20"})
+    public int mSize;
+
+    private Board mEmpty;
+    private Board mBoard;
+    private RandomPlayout mPlayout;
+    private PatternPlayout mPatternPlayout;
+    private Random mRandom;
+
+    @Setup
+    public void setUp() {
+        mEmpty = new Board(mSize);
+        mBoard = new Board(mSize);
+        mPlayout = new RandomPlayout(mBoard.getCellCount());
+        mPatternPlayout = new PatternPlayout(mBoard);
+        mRandom = new Random(42);
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        mBoard.copyFrom(mEmpty);
+        return mPlayout.run(mBoard, mRandom);
+    }
+
+    @Benchmark
+    public int patternPlayout() {
+        mBoard.copyFrom(mEmpty);
+        return mPatternPlayout.run(mBoard, mRandom);
+    }
+}
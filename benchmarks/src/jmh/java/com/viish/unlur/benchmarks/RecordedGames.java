@@ -0,0 +1,71 @@
+package com.viish.unlur.benchmarks;
+
+/*
+RecordedGames.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Random;
+
+/**
+ * Random legal games played once before measuring, so that every benchmark replays the same
+ * moves whatever rules implementation it exercises.
+ */
+public class RecordedGames {
+    public final Board mBoard;
+    public final int[][] mMoves;
+    // Axial coordinates and color of each stone, STAY_BLACK moves left out
+    public final int[][] mQ, mR;
+    public final boolean[][] mIsBlack;
+
+    public RecordedGames(int size, int count, long seed) {
+        Random random = new Random(seed);
+        mBoard = new Board(size);
+        mMoves = new int[count][];
+        mQ = new int[count][];
+        mR = new int[count][];
+        mIsBlack = new boolean[count][];
+
+        int[] legal = new int[mBoard.getCellCount() + 1];
+        for (int game = 0; game < count; game++) {
+            mBoard.reset();
+            while (!mBoard.isGameFinished()) {
+                int n = mBoard.getLegalMoves(legal);
+                mBoard.play(legal[random.nextInt(n)]);
+            }
+
+            int moveCount = mBoard.getMoveCount();
+            int stones = mBoard.isBlackChosen() ? moveCount - 1 : moveCount;
+            mMoves[game] = new int[moveCount];
+            mQ[game] = new int[stones];
+            mR[game] = new int[stones];
+            mIsBlack[game] = new boolean[stones];
+            int stone = 0;
+            for (int i = 0; i < moveCount; i++) {
+                int move = mBoard.getMove(i);
+                mMoves[game][i] = move;
+                if (move != Board.STAY_BLACK) {
+                    mQ[game][stone] = mBoard.getQ(move);
+                    mR[game][stone] = mBoard.getR(move);
+                    mIsBlack[game][stone] = mBoard.getColor(move) == Board.BLACK;
+                    stone++;
+                }
+            }
+        }
+        mBoard.reset();
+    }
+}
@@ -0,0 +1,99 @@
+package com.viish.unlur.benchmarks;
+
+/*
+ThreatMapBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.ThreatMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Plays a whole recorded game then takes every move back, keeping a threat map up to date
+ * either incrementally or by computing it again after each move. The board alone is the
+ * baseline.
+ */
+@State(Scope.Thread)
+public class ThreatMapBenchmark {
+    private static final int GAMES = 64;
+
+    @Param({"5", "10", "20", "50"})
+    public int mSize;
+
+    private RecordedGames mGames;
+    private Board mBoard;
+    private ThreatMap mThreats;
+    private int mGame;
+
+    @Setup
+    public void setUp() {
+        mGames = new RecordedGames(mSize, GAMES, 42);
+        mBoard = new Board(mSize);
+        mThreats = new ThreatMap();
+        mThreats.reset(mBoard);
+    }
+
+    @Benchmark
+    public void board(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+        }
+        for (int i = 0; i < moves.length; i++) {
+            mBoard.undo();
+        }
+    }
+
+    @Benchmark
+    public void incremental(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+            mThreats.played(mBoard);
+        }
+        for (int i = 0; i < moves.length; i++) {
+            mBoard.undo();
+            mThreats.undone(mBoard);
+        }
+        blackhole.consume(mThreats.getChangeCount());
+    }
+
+    @Benchmark
+    public void recompute(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+            mThreats.reset(mBoard);
+        }
+        for (int i = 0; i < moves.length; i++) {
+            mBoard.undo();
+            mThreats.reset(mBoard);
+        }
+        blackhole.consume(mThreats.getChangeCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.viish.unlur.benchmarks;
+
+/*
+TimelineBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.Timeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Jumps to random plies of a recorded game, as when dragging the timeline of the game screen,
+ * compared with replaying the game from the start up to the ply.
+ */
+@State(Scope.Thread)
+public class TimelineBenchmark {
+    private static final int SEEKS = 1024;
+
+    @Param({"5", "10", "20"})
+    public int mSize;
+
+    private Timeline mTimeline;
+    private int[] mMoves;
+    private Board mBoard;
+    private int[] mPlies;
+    private int mSeek;
+
+    @Setup
+    public void setUp() {
+        RecordedGames games = new RecordedGames(mSize, 1, 42);
+        mMoves = games.mMoves[0];
+        mTimeline = new Timeline(mSize);
+        for (int move : mMoves) {
+            mTimeline.play(move);
+        }
+        mBoard = new Board(mSize);
+        mPlies = new int[SEEKS];
+        Random random = new Random(42);
+        for (int i = 0; i < SEEKS; i++) {
+            mPlies[i] = random.nextInt(mMoves.length + 1);
+        }
+    }
+
+    @Benchmark
+    public Board seek() {
+        mTimeline.seek(mPlies[mSeek]);
+        mSeek = (mSeek + 1) % SEEKS;
+        return mTimeline.getBoard();
+    }
+
+    @Benchmark
+    public Board replay() {
+        mBoard.reset();
+        for (int i = 0; i < mPlies[mSeek]; i++) {
+            mBoard.play(mMoves[i]);
+        }
+        mSeek = (mSeek + 1) % SEEKS;
+        return mBoard;
+    }
+}
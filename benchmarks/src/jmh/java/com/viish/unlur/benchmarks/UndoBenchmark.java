@@ -0,0 +1,73 @@
+package com.viish.unlur.benchmarks;
+
+/*
+UndoBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Takes back every move of a recorded game. Each invocation first replays the game with
+ * {@link Board#copyFrom(Board)} from a finished copy, which is a handful of array copies, so
+ * that measuring the copy alone gives what to subtract.
+ */
+@State(Scope.Thread)
+public class UndoBenchmark {
+    private static final int GAMES = 64;
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20"})
+    public int mSize;
+
+    private Board[] mFinished;
+    private Board mBoard;
+    private int mGame;
+
+    @Setup
+    public void setUp() {
+        RecordedGames games = new RecordedGames(mSize, GAMES, 42);
+        mFinished = new Board[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            mFinished[i] = new Board(mSize);
+            for (int move : games.mMoves[i]) {
+                mFinished[i].play(move);
+            }
+        }
+        mBoard = new Board(mSize);
+    }
+
+    @Benchmark
+    public Board copy() {
+        mBoard.copyFrom(mFinished[mGame]);
+        mGame = (mGame + 1) % GAMES;
+        return mBoard;
+    }
+
+    @Benchmark
+    public Board copyAndUndoAll() {
+        mBoard.copyFrom(mFinished[mGame]);
+        mGame = (mGame + 1) % GAMES;
+        while (mBoard.getMoveCount() > 0) {
+            mBoard.undo();
+        }
+        return mBoard;
+    }
+}
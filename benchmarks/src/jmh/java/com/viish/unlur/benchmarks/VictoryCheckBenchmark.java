@@ -0,0 +1,80 @@
+package com.viish.unlur.benchmarks;
+
+/*
+VictoryCheckBenchmark.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Plays a whole recorded game, checking for victory after every stone, then takes every move
+ * back. The legacy version is the HashMap and recursive flood fill Game used to run.
+ */
+@State(Scope.Thread)
+public class VictoryCheckBenchmark {
+    private static final int GAMES = 64;
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20"})
+    public int mSize;
+
+    private RecordedGames mGames;
+    private Board mBoard;
+    private LegacyBoard mLegacy;
+    private int mGame;
+
+    @Setup
+    public void setUp() {
+        mGames = new RecordedGames(mSize, GAMES, 42);
+        mBoard = new Board(mSize);
+        mLegacy = new LegacyBoard(mSize);
+    }
+
+    @Benchmark
+    public void board(Blackhole blackhole) {
+        int[] moves = mGames.mMoves[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int move : moves) {
+            blackhole.consume(mBoard.play(move));
+        }
+        for (int i = 0; i < moves.length; i++) {
+            mBoard.undo();
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        int[] q = mGames.mQ[mGame];
+        int[] r = mGames.mR[mGame];
+        boolean[] isBlack = mGames.mIsBlack[mGame];
+        mGame = (mGame + 1) % GAMES;
+
+        for (int i = 0; i < q.length; i++) {
+            blackhole.consume(mLegacy.play(q[i], r[i], isBlack[i]));
+        }
+        for (int i = 0; i < q.length; i++) {
+            mLegacy.undo();
+        }
+        blackhole.consume(mLegacy.mLastLog);
+    }
+}
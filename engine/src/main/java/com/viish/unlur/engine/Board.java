@@ -0,0 +1,690 @@
+package com.viish.unlur.engine;
+
+/*
+Board.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import java.util.Arrays;
+
+/**
+ * Unlur rules on a hexagonal board of side {@code size}, without any Android dependency.
+ * <p>
+ * Cells are addressed in axial coordinates (q, r), both in [-(size - 1), size - 1] with
+ * |q + r| &lt;= size - 1. Each cell gets an index (r + size - 1) * stride + (q + size - 1) where
+ * the stride is one more than the number of lines, so every row ends with an unused padding bit.
+ * Stones are stored as one bitboard per color.
+ * <p>
+ * Groups of connected stones are tracked with a union-find whose roots carry the SIDE_* flags
+ * touched by the group, so the victory check after a move is a couple of merges and a table
+ * lookup. Finds don't compress paths (union by size keeps them logarithmic) so that every union
+ * can be logged and reverted in constant time by {@link #undo()}.
+ * <p>
+ * A 64-bit Zobrist hash of the position is kept up to date by every move, see {@link #getHash()}.
+ * Symmetric positions share one canonical hash, the smallest hash of the images of the position
+ * by each {@link Symmetry}, see {@link #getCanonicalHash()}. It's computed from the stones when
+ * asked for, unless {@link #setSymmetricHashing(boolean)} keeps every image hash up to date,
+ * which the searches probing a table at each node do.
+ */
+public class Board {
+    public static final int EMPTY = 0;
+    public static final int BLACK = 1;
+    public static final int WHITE = 2;
+
+    // Special move meaning the player to move chooses to stay black
+    public static final int STAY_BLACK = -1;
+
+    // Sides in clockwise order, starting from the top one
+    public static final int SIDE_TOP = 1;
+    public static final int SIDE_TOP_RIGHT = 1 << 1;
+    public static final int SIDE_BOTTOM_RIGHT = 1 << 2;
+    public static final int SIDE_BOTTOM = 1 << 3;
+    public static final int SIDE_BOTTOM_LEFT = 1 << 4;
+    public static final int SIDE_TOP_LEFT = 1 << 5;
+    public static final int SIDE_COUNT = 6;
+
+    // Axial offsets of the 6 neighbours, in clockwise order so that i + 3 is the opposite direction
+    public static final int[] DIRECTION_Q = {1, 1, 0, -1, -1, 0};
+    public static final int[] DIRECTION_R = {0, -1, -1, 0, 1, 1};
+
+    private static final boolean[] BLACK_SHAPES = new boolean[1 << SIDE_COUNT];
+    private static final boolean[] WHITE_SHAPES = new boolean[1 << SIDE_COUNT];
+
+    static {
+        for (int sides = 0; sides < 1 << SIDE_COUNT; sides++) {
+            boolean top = (sides & SIDE_TOP) != 0;
+            boolean topRight = (sides & SIDE_TOP_RIGHT) != 0;
+            boolean bottomRight = (sides & SIDE_BOTTOM_RIGHT) != 0;
+            boolean bottom = (sides & SIDE_BOTTOM) != 0;
+            boolean bottomLeft = (sides & SIDE_BOTTOM_LEFT) != 0;
+            boolean topLeft = (sides & SIDE_TOP_LEFT) != 0;
+            BLACK_SHAPES[sides] = (top && bottomLeft && bottomRight) || (bottom && topLeft && topRight);
+            WHITE_SHAPES[sides] = (top && bottom) || (topLeft && bottomRight) || (topRight && bottomLeft);
+        }
+    }
+
+    private final int mSize, mLines, mStride, mIndexCount, mCellCount;
+    private final long[] mValid;
+    private final long[] mBlack, mWhite;
+    private final int[] mCells;
+    private final int[] mSides;
+    private final int[] mNeighbours;
+    private final Symmetry mSymmetry;
+    private final int mSymmetryCount;
+    private final long[] mSymmetryKeys;
+
+    private final int[] mMoves;
+    private int mMoveCount;
+    private boolean mIsBlackTurn;
+    private boolean mIsBlackChosen;
+    private EndGame mEnd;
+    // Hash of the stones seen through each symmetry, the identity first, the first mHashCount
+    // being kept up to date
+    private final long[] mStonesHashes;
+    private int mHashCount = 1;
+    // Image hashes computed when asked for
+    private final long[] mImageHashes;
+
+    // Union-find over stones, only meaningful for occupied cells
+    private final int[] mParent;
+    private final int[] mGroupSize;
+    private final int[] mGroupSides;
+    // Stones of a group linked in a circle, joined and split again in constant time
+    private final int[] mNextStone;
+
+    // Unions made by each move as (child root, parent root, previous parent sides) triplets
+    private final int[] mUnions;
+    private final int[] mUnionMarks;
+    private int mUnionCount;
+
+    public Board(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Board size must be at least 1, got " + size);
+        }
+        mSize = size;
+        mLines = size * 2 - 1;
+        mStride = mLines + 1;
+        mIndexCount = mLines * mStride;
+        mCellCount = 3 * size * size - 3 * size + 1;
+
+        int words = (mIndexCount + 63) >>> 6;
+        mValid = new long[words];
+        mBlack = new long[words];
+        mWhite = new long[words];
+        mCells = new int[mCellCount];
+        mSides = new int[mIndexCount];
+        mNeighbours = new int[mIndexCount * 6];
+        mMoves = new int[mCellCount + 1];
+        mParent = new int[mIndexCount];
+        mGroupSize = new int[mIndexCount];
+        mGroupSides = new int[mIndexCount];
+        mNextStone = new int[mIndexCount];
+        mUnions = new int[mCellCount * 3];
+        mUnionMarks = new int[mCellCount + 1];
+
+        int max = size - 1;
+        int cell = 0;
+        for (int r = -max; r <= max; r++) {
+            for (int q = -max; q <= max; q++) {
+                if (!isValid(q, r)) continue;
+                int index = index(q, r);
+                mValid[index >>> 6] |= 1L << index;
+                mCells[cell++] = index;
+
+                mSides[index] = getSides(q, r, max);
+
+                for (int d = 0; d < 6; d++) {
+                    int nq = q + DIRECTION_Q[d];
+                    int nr = r + DIRECTION_R[d];
+                    mNeighbours[index * 6 + d] = isValid(nq, nr) ? index(nq, nr) : -1;
+                }
+            }
+        }
+
+        mSymmetry = Symmetry.get(this, Zobrist.getKeys(size, mIndexCount));
+        mSymmetryCount = mSymmetry.getCount();
+        mSymmetryKeys = mSymmetry.getKeys();
+        mStonesHashes = new long[mSymmetryCount];
+        mImageHashes = new long[mSymmetryCount];
+
+        reset();
+    }
+
+    public Board(Board other) {
+        this(other.mSize);
+        copyFrom(other);
+    }
+
+    /**
+     * Copies the position and history of a board of the same size, without allocating.
+     */
+    public void copyFrom(Board other) {
+        if (other.mSize != mSize) {
+            throw new IllegalArgumentException("Can't copy a board of size " + other.mSize + " into one of size " + mSize);
+        }
+        System.arraycopy(other.mBlack, 0, mBlack, 0, mBlack.length);
+        System.arraycopy(other.mWhite, 0, mWhite, 0, mWhite.length);
+        System.arraycopy(other.mMoves, 0, mMoves, 0, other.mMoveCount);
+        System.arraycopy(other.mUnionMarks, 0, mUnionMarks, 0, other.mMoveCount);
+        System.arraycopy(other.mUnions, 0, mUnions, 0, other.mUnionCount);
+        System.arraycopy(other.mParent, 0, mParent, 0, mIndexCount);
+        System.arraycopy(other.mGroupSize, 0, mGroupSize, 0, mIndexCount);
+        System.arraycopy(other.mGroupSides, 0, mGroupSides, 0, mIndexCount);
+        System.arraycopy(other.mNextStone, 0, mNextStone, 0, mIndexCount);
+        mMoveCount = other.mMoveCount;
+        mUnionCount = other.mUnionCount;
+        mIsBlackTurn = other.mIsBlackTurn;
+        mIsBlackChosen = other.mIsBlackChosen;
+        mEnd = other.mEnd;
+        if (other.mHashCount >= mHashCount) {
+            System.arraycopy(other.mStonesHashes, 0, mStonesHashes, 0, mHashCount);
+        } else {
+            computeHashes(mStonesHashes);
+        }
+    }
+
+    /**
+     * Keeps the hash of every symmetric image up to date move after move, which makes moves
+     * slower but {@link #getCanonicalHash()} immediate. Off by default.
+     */
+    public void setSymmetricHashing(boolean enabled) {
+        int count = enabled ? mSymmetryCount : 1;
+        if (count > mHashCount) {
+            computeHashes(mStonesHashes);
+        }
+        mHashCount = count;
+    }
+
+    public void reset() {
+        for (int i = 0; i < mBlack.length; i++) {
+            mBlack[i] = 0;
+            mWhite[i] = 0;
+        }
+        mMoveCount = 0;
+        mUnionCount = 0;
+        mIsBlackTurn = true;
+        mIsBlackChosen = false;
+        mEnd = EndGame.NOPE;
+        Arrays.fill(mStonesHashes, 0);
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    public int getLines() {
+        return mLines;
+    }
+
+    /**
+     * @return the number of playable cells, 3 * size^2 - 3 * size + 1
+     */
+    public int getCellCount() {
+        return mCellCount;
+    }
+
+    /**
+     * @return the upper bound (exclusive) of cell indexes, padding included
+     */
+    public int getIndexCount() {
+        return mIndexCount;
+    }
+
+    /**
+     * @return the index of the n-th playable cell, cells being sorted by row then column
+     */
+    public int getCell(int n) {
+        return mCells[n];
+    }
+
+    public boolean isValid(int q, int r) {
+        int max = mSize - 1;
+        return q >= -max && q <= max && r >= -max && r <= max && q + r >= -max && q + r <= max;
+    }
+
+    public int index(int q, int r) {
+        return (r + mSize - 1) * mStride + q + mSize - 1;
+    }
+
+    public int getQ(int index) {
+        return index % mStride - mSize + 1;
+    }
+
+    public int getR(int index) {
+        return index / mStride - mSize + 1;
+    }
+
+    /**
+     * @return the distance between the indexes of a cell and of the one below it
+     */
+    int getStride() {
+        return mStride;
+    }
+
+    /**
+     * @return the bitboard of the stones of a color, indexed like cells, not to be modified
+     */
+    long[] getStones(int color) {
+        return color == BLACK ? mBlack : mWhite;
+    }
+
+    /**
+     * @return the index of the neighbour in the given direction (see {@link #DIRECTION_Q}), or -1 if outside of the board
+     */
+    public int getNeighbour(int index, int direction) {
+        return mNeighbours[index * 6 + direction];
+    }
+
+    /**
+     * @return the SIDE_* flags of the sides the cell lies on, 0 for inner cells
+     */
+    public int getSides(int index) {
+        return mSides[index];
+    }
+
+    public boolean isSide(int index) {
+        return mSides[index] != 0;
+    }
+
+    public int getColor(int index) {
+        long bit = 1L << index;
+        if ((mBlack[index >>> 6] & bit) != 0) return BLACK;
+        if ((mWhite[index >>> 6] & bit) != 0) return WHITE;
+        return EMPTY;
+    }
+
+    public boolean isEmpty(int index) {
+        long bit = 1L << index;
+        return ((mBlack[index >>> 6] | mWhite[index >>> 6]) & bit) == 0;
+    }
+
+    /**
+     * @return the SIDE_* flags touched by the group of stones the cell belongs to
+     */
+    public int getGroupSides(int index) {
+        return mGroupSides[find(index)];
+    }
+
+    /**
+     * Following the next stone from any stone of a group goes through all of them once and back
+     * to the first one.
+     *
+     * @return the next stone of the group of the given stone
+     */
+    public int getNextStone(int index) {
+        return mNextStone[index];
+    }
+
+    /**
+     * @return a cell identifying the group of stones the given one belongs to
+     */
+    public int getGroup(int index) {
+        return find(index);
+    }
+
+    /**
+     * @return the Zobrist hash of the stones, of whether someone stayed black and of the color to play
+     */
+    public long getHash() {
+        return mStonesHashes[0] ^ getStateHash();
+    }
+
+    /**
+     * @return the same hash for a position and all its symmetric images
+     */
+    public long getCanonicalHash() {
+        long[] hashes = getStonesHashes();
+        return hashes[getCanonicalSymmetry(hashes)] ^ getStateHash();
+    }
+
+    /**
+     * @return the transform taking the position to its canonical form, moves of the position
+     * being mapped to moves of the canonical form with {@link Symmetry#transform(int, int)}
+     */
+    public int getCanonicalSymmetry() {
+        return getCanonicalSymmetry(getStonesHashes());
+    }
+
+    private int getCanonicalSymmetry(long[] hashes) {
+        int best = 0;
+        for (int t = 1; t < mSymmetryCount; t++) {
+            if (hashes[t] < hashes[best]) best = t;
+        }
+        return best;
+    }
+
+    private long[] getStonesHashes() {
+        if (mHashCount == mSymmetryCount) return mStonesHashes;
+        computeHashes(mImageHashes);
+        return mImageHashes;
+    }
+
+    /**
+     * Computes the hash of every image of the stones from scratch.
+     */
+    private void computeHashes(long[] hashes) {
+        Arrays.fill(hashes, 0);
+        for (int i = 0; i < mMoveCount; i++) {
+            int move = mMoves[i];
+            if (move == STAY_BLACK) continue;
+            int keys = ((mBlack[move >>> 6] & (1L << move)) != 0 ? move * 2 : move * 2 + 1) * mSymmetryCount;
+            for (int t = 0; t < mSymmetryCount; t++) {
+                hashes[t] ^= mSymmetryKeys[keys + t];
+            }
+        }
+    }
+
+    public Symmetry getSymmetry() {
+        return mSymmetry;
+    }
+
+    private long getStateHash() {
+        long hash = 0;
+        if (mIsBlackChosen) hash ^= Zobrist.STAY_BLACK;
+        if (!mIsBlackTurn) hash ^= Zobrist.WHITE_TO_PLAY;
+        return hash;
+    }
+
+    public boolean isBlackTurn() {
+        return mIsBlackTurn;
+    }
+
+    public boolean isBlackChosen() {
+        return mIsBlackChosen;
+    }
+
+    /**
+     * @return the color of the stone the player to move will put down
+     */
+    public int getColorToPlay() {
+        return mIsBlackTurn ? BLACK : WHITE;
+    }
+
+    public boolean isGameFinished() {
+        return mEnd != EndGame.NOPE;
+    }
+
+    /**
+     * @return the outcome of the last move, from the point of view of the player who made it
+     */
+    public EndGame getEndGame() {
+        return mEnd;
+    }
+
+    /**
+     * @return the color that won the game, or EMPTY if it isn't finished
+     */
+    public int getWinner() {
+        if (mEnd == EndGame.NOPE) return EMPTY;
+        int mover = getColor(mMoves[mMoveCount - 1]);
+        if (mEnd == EndGame.VICTORY) return mover;
+        return mover == BLACK ? WHITE : BLACK;
+    }
+
+    /**
+     * Players are numbered 0 for the one who moved first and 1 for the other, since the colors
+     * they end up with depend on who chooses to stay black.
+     *
+     * @return the player to move
+     */
+    public int getPlayer() {
+        return mMoveCount & 1;
+    }
+
+    /**
+     * @return the player (see {@link #getPlayer()}) who won the game, or -1 if it isn't finished
+     */
+    public int getWinningPlayer() {
+        if (mEnd == EndGame.NOPE) return -1;
+        int mover = (mMoveCount - 1) & 1;
+        return mEnd == EndGame.VICTORY ? mover : 1 - mover;
+    }
+
+    public int getMoveCount() {
+        return mMoveCount;
+    }
+
+    /**
+     * @return the n-th move of the game, either a cell index or STAY_BLACK
+     */
+    public int getMove(int n) {
+        return mMoves[n];
+    }
+
+    public int getLastMove() {
+        return mMoves[mMoveCount - 1];
+    }
+
+    public boolean canStayBlack() {
+        return !mIsBlackChosen && mEnd == EndGame.NOPE;
+    }
+
+    public boolean isLegal(int index) {
+        if (index == STAY_BLACK) return canStayBlack();
+        if (index < 0 || index >= mIndexCount || (mValid[index >>> 6] & (1L << index)) == 0) return false;
+        if (mEnd != EndGame.NOPE || !isEmpty(index)) return false;
+        // Sides are only playable once someone chose to stay black
+        return mIsBlackChosen || mSides[index] == 0;
+    }
+
+    public boolean isLegal(int q, int r) {
+        return isValid(q, r) && isLegal(index(q, r));
+    }
+
+    public void stayBlack() {
+        if (!canStayBlack()) {
+            throw new IllegalStateException("Staying black isn't allowed anymore");
+        }
+        mUnionMarks[mMoveCount] = mUnionCount;
+        mMoves[mMoveCount++] = STAY_BLACK;
+        mIsBlackChosen = true;
+        mIsBlackTurn = false;
+    }
+
+    /**
+     * Plays a move, either a cell index or STAY_BLACK.
+     *
+     * @return the outcome for the player who just moved
+     */
+    public EndGame play(int move) {
+        if (move == STAY_BLACK) {
+            stayBlack();
+            return EndGame.NOPE;
+        }
+        if (!isLegal(move)) {
+            throw new IllegalStateException("Illegal move q=" + getQ(move) + ", r=" + getR(move));
+        }
+
+        mUnionMarks[mMoveCount] = mUnionCount;
+        mMoves[mMoveCount++] = move;
+        long[] stones = mIsBlackTurn ? mBlack : mWhite;
+        stones[move >>> 6] |= 1L << move;
+        toggleHashes(move, mIsBlackTurn);
+
+        mParent[move] = move;
+        mGroupSize[move] = 1;
+        mGroupSides[move] = mSides[move];
+        mNextStone[move] = move;
+        int root = move;
+        for (int d = 0; d < 6; d++) {
+            int next = mNeighbours[move * 6 + d];
+            if (next >= 0 && (stones[next >>> 6] & (1L << next)) != 0) {
+                root = union(root, find(next));
+            }
+        }
+
+        mEnd = checkVictory(mIsBlackTurn, mGroupSides[root]);
+        if (mEnd == EndGame.NOPE && mIsBlackChosen) {
+            mIsBlackTurn = !mIsBlackTurn;
+        }
+        return mEnd;
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @return the move that was undone, either a cell index or STAY_BLACK
+     */
+    public int undo() {
+        if (mMoveCount == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+
+        int move = mMoves[--mMoveCount];
+        int mark = mUnionMarks[mMoveCount];
+        while (mUnionCount > mark) {
+            mUnionCount -= 3;
+            int child = mUnions[mUnionCount];
+            int parent = mUnions[mUnionCount + 1];
+            mParent[child] = child;
+            mGroupSize[parent] -= mGroupSize[child];
+            mGroupSides[parent] = mUnions[mUnionCount + 2];
+            swapNextStones(child, parent);
+        }
+
+        mEnd = EndGame.NOPE;
+        if (move == STAY_BLACK) {
+            mIsBlackChosen = false;
+            mIsBlackTurn = true;
+        } else {
+            long bit = 1L << move;
+            // The stone color tells who played it, whether the game had ended or not
+            mIsBlackTurn = (mBlack[move >>> 6] & bit) != 0;
+            toggleHashes(move, mIsBlackTurn);
+            mBlack[move >>> 6] &= ~bit;
+            mWhite[move >>> 6] &= ~bit;
+        }
+        return move;
+    }
+
+    /**
+     * Tells what putting a stone of the given color on an empty cell would do, without playing
+     * it. The color doesn't have to be the one to play, so the threats of both players can be
+     * looked for.
+     *
+     * @return the outcome for the player putting the stone
+     */
+    public EndGame peek(int index, int color) {
+        long[] stones = color == BLACK ? mBlack : mWhite;
+        int sides = mSides[index];
+        for (int d = 0; d < 6; d++) {
+            int next = mNeighbours[index * 6 + d];
+            if (next >= 0 && (stones[next >>> 6] & (1L << next)) != 0) {
+                sides |= mGroupSides[find(next)];
+            }
+        }
+        return checkVictory(color == BLACK, sides);
+    }
+
+    /**
+     * Fills the array with the legal moves, STAY_BLACK included.
+     *
+     * @return the number of moves written
+     */
+    public int getLegalMoves(int[] moves) {
+        int count = 0;
+        if (mEnd != EndGame.NOPE) return 0;
+        if (!mIsBlackChosen) {
+            moves[count++] = STAY_BLACK;
+        }
+        for (int cell : mCells) {
+            if (isLegal(cell)) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the sides touched by a cell of a board whose cells are at most max away from the center
+     */
+    static int getSides(int q, int r, int max) {
+        int sides = 0;
+        if (r == -max) sides |= SIDE_TOP;
+        if (q == max) sides |= SIDE_TOP_RIGHT;
+        if (q + r == max) sides |= SIDE_BOTTOM_RIGHT;
+        if (r == max) sides |= SIDE_BOTTOM;
+        if (q == -max) sides |= SIDE_BOTTOM_LEFT;
+        if (q + r == -max) sides |= SIDE_TOP_LEFT;
+        return sides;
+    }
+
+    public static boolean isBlackShape(int sides) {
+        return BLACK_SHAPES[sides];
+    }
+
+    public static boolean isWhiteShape(int sides) {
+        return WHITE_SHAPES[sides];
+    }
+
+    private void toggleHashes(int index, boolean isBlack) {
+        int keys = (isBlack ? index * 2 : index * 2 + 1) * mSymmetryCount;
+        for (int t = 0; t < mHashCount; t++) {
+            mStonesHashes[t] ^= mSymmetryKeys[keys + t];
+        }
+    }
+
+    private int find(int index) {
+        while (mParent[index] != index) {
+            index = mParent[index];
+        }
+        return index;
+    }
+
+    private int union(int a, int b) {
+        if (a == b) return a;
+        if (mGroupSize[a] < mGroupSize[b]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        mUnions[mUnionCount++] = b;
+        mUnions[mUnionCount++] = a;
+        mUnions[mUnionCount++] = mGroupSides[a];
+        mParent[b] = a;
+        mGroupSize[a] += mGroupSize[b];
+        mGroupSides[a] |= mGroupSides[b];
+        swapNextStones(a, b);
+        return a;
+    }
+
+    /**
+     * Joins the circles of two groups, or splits them back when applied again to the same stones.
+     */
+    private void swapNextStones(int a, int b) {
+        int next = mNextStone[a];
+        mNextStone[a] = mNextStone[b];
+        mNextStone[b] = next;
+    }
+
+    private static EndGame checkVictory(boolean isBlack, int sides) {
+        boolean blackWins = BLACK_SHAPES[sides];
+        boolean whiteWins = WHITE_SHAPES[sides];
+        if (isBlack) {
+            if (blackWins) {
+                return EndGame.VICTORY;
+            } else if (whiteWins) {
+                return EndGame.DEFEAT;
+            }
+        } else {
+            if (whiteWins) {
+                return EndGame.VICTORY;
+            } else if (blackWins) {
+                return EndGame.DEFEAT;
+            }
+        }
+        return EndGame.NOPE;
+    }
+}
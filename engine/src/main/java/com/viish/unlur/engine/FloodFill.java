@@ -0,0 +1,192 @@
+package com.viish.unlur.engine;
+
+/*
+FloodFill.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+/**
+ * Finds groups of stones from scratch, without the union-find history of {@link Board}, by
+ * growing them a whole bitboard word at a time: a group is ORed with its shifts along the six
+ * directions, masked by the stones of its color, until it stops growing. Since every row of
+ * the board ends with a padding bit, shifting never wraps a stone around to another row.
+ * <p>
+ * Sweeps go forward then backward over the words and each word is grown until it is stable,
+ * so a group spreads across a whole word or along the sweep in a single pass, and only the
+ * words the group can reach are visited. The sides touched by a group are then six masked ANDs.
+ * <p>
+ * Instances hold their work bitboards, so they are meant for a single thread.
+ */
+public class FloodFill {
+    private final int mSize;
+    private final int mWords;
+    // The three positive index offsets of the neighbours, as word and bit shifts
+    private final int[] mWordShifts = new int[3];
+    private final int[] mBitShifts = new int[3];
+    // Words that a word can get bits from
+    private final int mReach;
+    private final long[][] mSideMasks = new long[Board.SIDE_COUNT][];
+
+    private final long[] mGroup;
+    private final long[] mRemaining;
+    // Words holding the last filled group
+    private int mFirstWord, mLastWord;
+
+    public FloodFill(int size) {
+        Board board = new Board(size);
+        mSize = size;
+        int stride = board.getStride();
+        mWords = (board.getIndexCount() + 63) >>> 6;
+        int[] offsets = {1, stride - 1, stride};
+        for (int i = 0; i < offsets.length; i++) {
+            mWordShifts[i] = offsets[i] >>> 6;
+            mBitShifts[i] = offsets[i] & 63;
+        }
+        mReach = (stride + 63) >>> 6;
+
+        for (int side = 0; side < Board.SIDE_COUNT; side++) {
+            mSideMasks[side] = new long[mWords];
+        }
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int index = board.getCell(n);
+            for (int side = 0; side < Board.SIDE_COUNT; side++) {
+                if ((board.getSides(index) & (1 << side)) != 0) {
+                    mSideMasks[side][index >>> 6] |= 1L << index;
+                }
+            }
+        }
+        mGroup = new long[mWords];
+        mRemaining = new long[mWords];
+    }
+
+    /**
+     * Same as {@link Board#getGroupSides(int)}.
+     */
+    public int getGroupSides(Board board, int index) {
+        checkSize(board);
+        fill(board.getStones(board.getColor(index)), index);
+        int sides = getSides();
+        clear(null);
+        return sides;
+    }
+
+    /**
+     * @return whether a group of stones of the color touches the sides making its shape, see {@link Board#isBlackShape(int)}
+     */
+    public boolean hasShape(Board board, int color) {
+        checkSize(board);
+        System.arraycopy(board.getStones(color), 0, mRemaining, 0, mWords);
+        for (int word = 0; word < mWords; word++) {
+            while (mRemaining[word] != 0) {
+                fill(mRemaining, (word << 6) + Long.numberOfTrailingZeros(mRemaining[word]));
+                int sides = getSides();
+                clear(mRemaining);
+                if (color == Board.BLACK ? Board.isBlackShape(sides) : Board.isWhiteShape(sides)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void checkSize(Board board) {
+        if (board.getSize() != mSize) {
+            throw new IllegalArgumentException("Flood fill of size " + mSize + " used on a board of size " + board.getSize());
+        }
+    }
+
+    /**
+     * Grows the group of the seed stone among the given stones into mGroup.
+     */
+    private void fill(long[] stones, int seed) {
+        mFirstWord = mLastWord = seed >>> 6;
+        mGroup[mFirstWord] = 1L << seed;
+
+        boolean isGrowing = true;
+        boolean isForward = true;
+        while (isGrowing) {
+            isGrowing = false;
+            int from = Math.max(0, mFirstWord - mReach);
+            int to = Math.min(mWords - 1, mLastWord + mReach);
+            for (int n = 0; n <= to - from; n++) {
+                int word = isForward ? from + n : to - n;
+                long bits = mGroup[word];
+                long grown = grow(word) & stones[word];
+                if (grown == bits) continue;
+
+                // Spreads within the word before moving on
+                do {
+                    bits = grown;
+                    mGroup[word] = bits;
+                    grown = grow(word) & stones[word];
+                } while (grown != bits);
+                isGrowing = true;
+                mFirstWord = Math.min(mFirstWord, word);
+                mLastWord = Math.max(mLastWord, word);
+            }
+            isForward = !isForward;
+        }
+    }
+
+    /**
+     * @return the word of the group ORed with the same word of its six shifts
+     */
+    private long grow(int word) {
+        long[] group = mGroup;
+        long bits = group[word];
+        for (int i = 0; i < 3; i++) {
+            int wordShift = mWordShifts[i];
+            int bitShift = mBitShifts[i];
+
+            // Bits coming from lower indexes
+            int source = word - wordShift;
+            if (source >= 0) {
+                bits |= group[source] << bitShift;
+                if (bitShift != 0 && source > 0) bits |= group[source - 1] >>> (64 - bitShift);
+            }
+            // And from higher ones
+            source = word + wordShift;
+            if (source < mWords) {
+                bits |= group[source] >>> bitShift;
+                if (bitShift != 0 && source + 1 < mWords) bits |= group[source + 1] << (64 - bitShift);
+            }
+        }
+        return bits;
+    }
+
+    private int getSides() {
+        int sides = 0;
+        for (int side = 0; side < Board.SIDE_COUNT; side++) {
+            long[] mask = mSideMasks[side];
+            for (int word = mFirstWord; word <= mLastWord; word++) {
+                if ((mGroup[word] & mask[word]) != 0) {
+                    sides |= 1 << side;
+                    break;
+                }
+            }
+        }
+        return sides;
+    }
+
+    /**
+     * Empties mGroup, removing its stones from the given bitboard if there is one.
+     */
+    private void clear(long[] stones) {
+        for (int word = mFirstWord; word <= mLastWord; word++) {
+            if (stones != null) stones[word] &= ~mGroup[word];
+            mGroup[word] = 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.viish.unlur.engine;
+
+/*
+Symmetry.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import java.util.Arrays;
+
+/**
+ * The rotations and reflections of the hexagon that keep the goals of both colors, as
+ * permutations of the cell indexes of a board size.
+ * <p>
+ * A transform moves each side of the board onto another one, so it is kept only if it maps
+ * every black shape to a black shape and every white shape to a white shape. All 12 symmetries
+ * of the hexagon pass this check: rotations and reflections both keep opposite sides opposite,
+ * and send the three alternate sides of a black shape to three alternate sides.
+ * Transform 0 is the identity.
+ */
+public final class Symmetry {
+    // Kept transforms, as (reflect, rotations) pairs
+    private static final int[] TRANSFORMS;
+    private static final Symmetry[] sSymmetries = new Symmetry[64];
+
+    static {
+        int[] transforms = new int[24];
+        int count = 0;
+        for (int t = 0; t < 12; t++) {
+            boolean reflect = t >= 6;
+            int rotations = t % 6;
+            if (keepsGoals(reflect, rotations)) {
+                transforms[count++] = reflect ? 1 : 0;
+                transforms[count++] = rotations;
+            }
+        }
+        TRANSFORMS = Arrays.copyOf(transforms, count);
+    }
+
+    private final int mCount;
+    private final int[] mPermutations;
+    private final int[] mInverses;
+    private final int mIndexCount;
+    private final long[] mKeys;
+
+    private Symmetry(Board board, long[] keys) {
+        mCount = TRANSFORMS.length / 2;
+        mIndexCount = board.getIndexCount();
+        mPermutations = new int[mCount * mIndexCount];
+        mInverses = new int[mCount * mIndexCount];
+        Arrays.fill(mPermutations, -1);
+        Arrays.fill(mInverses, -1);
+        for (int t = 0; t < mCount; t++) {
+            for (int n = 0; n < board.getCellCount(); n++) {
+                int index = board.getCell(n);
+                int[] qr = apply(TRANSFORMS[t * 2] == 1, TRANSFORMS[t * 2 + 1], board.getQ(index), board.getR(index));
+                int image = board.index(qr[0], qr[1]);
+                mPermutations[t * mIndexCount + index] = image;
+                mInverses[t * mIndexCount + image] = index;
+            }
+        }
+
+        mKeys = new long[mIndexCount * 2 * mCount];
+        for (int index = 0; index < mIndexCount; index++) {
+            for (int t = 0; t < mCount; t++) {
+                int image = mPermutations[t * mIndexCount + index];
+                if (image < 0) continue;
+                mKeys[(index * 2) * mCount + t] = keys[image * 2];
+                mKeys[(index * 2 + 1) * mCount + t] = keys[image * 2 + 1];
+            }
+        }
+    }
+
+    static synchronized Symmetry get(Board board, long[] keys) {
+        int size = board.getSize();
+        if (size < sSymmetries.length && sSymmetries[size] != null) {
+            return sSymmetries[size];
+        }
+        Symmetry symmetry = new Symmetry(board, keys);
+        if (size < sSymmetries.length) {
+            sSymmetries[size] = symmetry;
+        }
+        return symmetry;
+    }
+
+    /**
+     * @return the number of transforms, at most 12
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the image of a move by a transform, STAY_BLACK being its own image
+     */
+    public int transform(int t, int move) {
+        return move < 0 ? move : mPermutations[t * mIndexCount + move];
+    }
+
+    /**
+     * @return the move whose image by a transform is the given one
+     */
+    public int inverse(int t, int move) {
+        return move < 0 ? move : mInverses[t * mIndexCount + move];
+    }
+
+    /**
+     * @return the Zobrist keys of the images of each stone, at ((index * 2 + color) * count + transform)
+     * with color 0 for black and 1 for white
+     */
+    long[] getKeys() {
+        return mKeys;
+    }
+
+    private static int[] apply(boolean reflect, int rotations, int q, int r) {
+        if (reflect) {
+            int tmp = q;
+            q = r;
+            r = tmp;
+        }
+        for (int i = 0; i < rotations; i++) {
+            // 60 degrees: cube (x, y, z) to (-z, -x, -y)
+            int tmp = q;
+            q = -r;
+            r = tmp + r;
+        }
+        return new int[]{q, r};
+    }
+
+    private static boolean keepsGoals(boolean reflect, int rotations) {
+        // Where the middle cell of each side of a size 3 board goes tells where the side goes
+        int[] sides = new int[Board.SIDE_COUNT];
+        for (int r = -2; r <= 2; r++) {
+            for (int q = -2; q <= 2; q++) {
+                int side = Board.getSides(q, r, 2);
+                if (Math.abs(q + r) > 2 || Integer.bitCount(side) != 1) continue;
+                int[] image = apply(reflect, rotations, q, r);
+                sides[Integer.numberOfTrailingZeros(side)] = Board.getSides(image[0], image[1], 2);
+            }
+        }
+
+        for (int shape = 0; shape < 1 << Board.SIDE_COUNT; shape++) {
+            int image = 0;
+            for (int i = 0; i < Board.SIDE_COUNT; i++) {
+                if ((shape & (1 << i)) != 0) image |= sides[i];
+            }
+            if (Board.isBlackShape(shape) != Board.isBlackShape(image)
+                    || Board.isWhiteShape(shape) != Board.isWhiteShape(image)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
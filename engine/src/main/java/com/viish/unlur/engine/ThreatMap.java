@@ -0,0 +1,190 @@
+package com.viish.unlur.engine;
+
+/*
+ThreatMap.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import java.util.Arrays;
+
+/**
+ * What a stone of each color would do on each empty cell, as told by {@link Board#peek(int, int)},
+ * kept up to date move after move.
+ * <p>
+ * A move only changes the outcomes of its own color: on the cells next to the stone, and next
+ * to the groups it joined that gained sides doing so. Only those groups are walked, and as the
+ * sides of a group can only grow six times, following a game costs about as much as playing
+ * it. Changes are logged so that taking a move back just restores them.
+ */
+public class ThreatMap {
+    private static final EndGame[] OUTCOMES = EndGame.values();
+
+    private int mSize;
+    private int mIndexCount;
+    // Outcome ordinal of a black stone on each cell, then of a white one
+    private byte[] mOutcomes;
+    // Stones next to which outcomes may have changed
+    private int[] mStones;
+    private int[] mMarks;
+    private int mMark;
+
+    // (position, previous outcome) pairs
+    private int[] mLog = new int[1024];
+    private int mLogCount;
+    private int[] mMoveMarks;
+    private int mMoveCount;
+    // Moves before the last reset have nothing logged
+    private int mFirstMove;
+
+    private int[] mChanges;
+    private int mChangeCount;
+
+    /**
+     * Computes every outcome from scratch for the position, to be done before following its
+     * moves and whenever the board changed otherwise. All the cells count as changed.
+     */
+    public void reset(Board board) {
+        if (mOutcomes == null || mSize != board.getSize()) {
+            mSize = board.getSize();
+            mIndexCount = board.getIndexCount();
+            mOutcomes = new byte[2 * mIndexCount];
+            mStones = new int[board.getCellCount()];
+            mMarks = new int[mIndexCount];
+            mMoveMarks = new int[board.getCellCount() + 2];
+            mChanges = new int[board.getCellCount()];
+        }
+        Arrays.fill(mOutcomes, (byte) EndGame.NOPE.ordinal());
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int cell = board.getCell(n);
+            mChanges[n] = cell;
+            if (board.isEmpty(cell)) {
+                mOutcomes[cell] = (byte) board.peek(cell, Board.BLACK).ordinal();
+                mOutcomes[mIndexCount + cell] = (byte) board.peek(cell, Board.WHITE).ordinal();
+            }
+        }
+        mLogCount = 0;
+        mMoveCount = board.getMoveCount();
+        mFirstMove = mMoveCount;
+        mChangeCount = board.getCellCount();
+    }
+
+    /**
+     * @return the outcome of putting a stone of the color on the cell, NOPE if it isn't empty
+     */
+    public EndGame getOutcome(int index, int color) {
+        return OUTCOMES[mOutcomes[(color - 1) * mIndexCount + index]];
+    }
+
+    /**
+     * @return the number of cells whose outcomes the last update changed
+     */
+    public int getChangeCount() {
+        return mChangeCount;
+    }
+
+    public int getChange(int n) {
+        return mChanges[n];
+    }
+
+    /**
+     * Follows the last move of the board, which is briefly taken back to see the groups as they
+     * were before it.
+     */
+    public void played(Board board) {
+        mMoveMarks[mMoveCount++] = mLogCount;
+        mChangeCount = 0;
+        int move = board.getLastMove();
+        // Staying black changes who plays, not what a stone does
+        if (move == Board.STAY_BLACK) return;
+
+        setOutcome(move, EndGame.NOPE.ordinal());
+        setOutcome(mIndexCount + move, EndGame.NOPE.ordinal());
+        mChanges[mChangeCount++] = move;
+
+        int color = board.getColor(move);
+        int sides = board.getGroupSides(move);
+        int count = 0;
+        mStones[count++] = move;
+        board.undo();
+        mMark++;
+        for (int d = 0; d < 6; d++) {
+            int next = board.getNeighbour(move, d);
+            if (next < 0 || board.getColor(next) != color) continue;
+            int group = board.getGroup(next);
+            if (mMarks[group] == mMark) continue;
+
+            mMarks[group] = mMark;
+            if (board.getGroupSides(group) == sides) continue;
+            int stone = group;
+            do {
+                mStones[count++] = stone;
+                stone = board.getNextStone(stone);
+            } while (stone != group);
+        }
+        board.play(move);
+
+        int offset = (color - 1) * mIndexCount;
+        mMark++;
+        for (int i = 0; i < count; i++) {
+            for (int d = 0; d < 6; d++) {
+                int next = board.getNeighbour(mStones[i], d);
+                if (next < 0 || mMarks[next] == mMark || !board.isEmpty(next)) continue;
+
+                mMarks[next] = mMark;
+                if (setOutcome(offset + next, board.peek(next, color).ordinal())) {
+                    mChanges[mChangeCount++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes back what the last followed move changed, the board being the one it was undone on.
+     */
+    public void undone(Board board) {
+        if (mMoveCount == mFirstMove) {
+            reset(board);
+            return;
+        }
+
+        mChangeCount = 0;
+        int mark = mMoveMarks[--mMoveCount];
+        while (mLogCount > mark) {
+            mLogCount -= 2;
+            int position = mLog[mLogCount];
+            mOutcomes[position] = (byte) mLog[mLogCount + 1];
+            int cell = position % mIndexCount;
+            // Both colors of the move cell are logged
+            if (mChangeCount == 0 || mChanges[mChangeCount - 1] != cell) {
+                mChanges[mChangeCount++] = cell;
+            }
+        }
+    }
+
+    /**
+     * @return whether the outcome changed
+     */
+    private boolean setOutcome(int position, int outcome) {
+        if (mOutcomes[position] == outcome) return false;
+
+        if (mLogCount + 2 > mLog.length) {
+            mLog = Arrays.copyOf(mLog, mLog.length * 2);
+        }
+        mLog[mLogCount++] = position;
+        mLog[mLogCount++] = mOutcomes[position];
+        mOutcomes[position] = (byte) outcome;
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.viish.unlur.engine;
+
+/*
+Timeline.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+/**
+ * The moves of a game with a current position that can be moved back and forth, for undo,
+ * redo and reviewing games.
+ * <p>
+ * A copy of the board is kept every {@link #SNAPSHOT_INTERVAL} plies, so that reaching any ply
+ * costs at most a copy and a few moves: the board is taken from the closest snapshot before the
+ * target when that's shorter than playing or undoing from the current position.
+ */
+public class Timeline {
+    public static final int SNAPSHOT_INTERVAL = 16;
+
+    private final Board mBoard;
+    private final int[] mMoves;
+    private int mLength;
+    // Position at ply n * SNAPSHOT_INTERVAL, only the first ones are up to date
+    private final Board[] mSnapshots;
+    private int mSnapshotCount;
+
+    public Timeline(int size) {
+        mBoard = new Board(size);
+        mMoves = new int[mBoard.getCellCount() + 1];
+        mSnapshots = new Board[mMoves.length / SNAPSHOT_INTERVAL + 1];
+        mSnapshots[0] = new Board(size);
+        mSnapshotCount = 1;
+    }
+
+    /**
+     * @return the board at the current ply, which must only be changed through the timeline
+     */
+    public Board getBoard() {
+        return mBoard;
+    }
+
+    public int getPly() {
+        return mBoard.getMoveCount();
+    }
+
+    /**
+     * @return the number of moves, including the ones after the current ply
+     */
+    public int getLength() {
+        return mLength;
+    }
+
+    /**
+     * @return the n-th move of the timeline, either a cell index or {@link Board#STAY_BLACK}
+     */
+    public int getMove(int n) {
+        return mMoves[n];
+    }
+
+    public boolean canUndo() {
+        return getPly() > 0;
+    }
+
+    public boolean canRedo() {
+        return getPly() < mLength;
+    }
+
+    /**
+     * Plays a move at the current ply, the moves that were after it are forgotten unless it's
+     * the same as the next one.
+     *
+     * @return the outcome for the player who just moved
+     */
+    public EndGame play(int move) {
+        int ply = getPly();
+        EndGame end = mBoard.play(move);
+        if (ply >= mLength || mMoves[ply] != move) {
+            mMoves[ply] = move;
+            mLength = ply + 1;
+            mSnapshotCount = Math.min(mSnapshotCount, ply / SNAPSHOT_INTERVAL + 1);
+        }
+        takeSnapshot();
+        return end;
+    }
+
+    /**
+     * Goes one ply back.
+     *
+     * @return the move taken back
+     */
+    public int undo() {
+        return mBoard.undo();
+    }
+
+    /**
+     * Plays the next move of the timeline again.
+     *
+     * @return the move played
+     */
+    public int redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int move = mMoves[getPly()];
+        mBoard.play(move);
+        takeSnapshot();
+        return move;
+    }
+
+    /**
+     * Moves the board to the position after the given number of moves of the timeline.
+     */
+    public void seek(int ply) {
+        if (ply < 0 || ply > mLength) {
+            throw new IllegalArgumentException("Ply " + ply + " is outside of the timeline of " + mLength + " moves");
+        }
+
+        int snapshot = Math.min(ply / SNAPSHOT_INTERVAL, mSnapshotCount - 1);
+        int fromSnapshot = ply - snapshot * SNAPSHOT_INTERVAL;
+        int fromCurrent = Math.abs(ply - getPly());
+        if (fromSnapshot < fromCurrent) {
+            mBoard.copyFrom(mSnapshots[snapshot]);
+        }
+        while (getPly() > ply) {
+            mBoard.undo();
+        }
+        while (getPly() < ply) {
+            redo();
+        }
+    }
+
+    /**
+     * Forgets every move, back to the empty board.
+     */
+    public void clear() {
+        mBoard.reset();
+        mLength = 0;
+        mSnapshotCount = 1;
+    }
+
+    private void takeSnapshot() {
+        int ply = getPly();
+        if (ply % SNAPSHOT_INTERVAL != 0 || ply / SNAPSHOT_INTERVAL != mSnapshotCount) return;
+
+        if (mSnapshots[mSnapshotCount] == null) {
+            mSnapshots[mSnapshotCount] = new Board(mBoard.getSize());
+        }
+        mSnapshots[mSnapshotCount++].copyFrom(mBoard);
+    }
+}
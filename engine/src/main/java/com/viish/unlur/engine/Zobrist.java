@@ -0,0 +1,58 @@
+package com.viish.unlur.engine;
+
+/*
+Zobrist.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+/**
+ * Random 64-bit keys for incremental position hashing. Keys are derived from a fixed seed so
+ * hashes stay the same from one run to another and can be stored in files.
+ */
+final class Zobrist {
+    static final long STAY_BLACK = mix(0x5354415942L);
+    static final long WHITE_TO_PLAY = mix(0x5748495445L);
+
+    private static final long[][] sKeys = new long[64][];
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return keys of a board of the given size, at (index * 2) for black stones and (index * 2 + 1) for white ones
+     */
+    static synchronized long[] getKeys(int size, int indexCount) {
+        if (size < sKeys.length && sKeys[size] != null) {
+            return sKeys[size];
+        }
+
+        long[] keys = new long[indexCount * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = mix(((long) size << 32) | i);
+        }
+        if (size < sKeys.length) {
+            sKeys[size] = keys;
+        }
+        return keys;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
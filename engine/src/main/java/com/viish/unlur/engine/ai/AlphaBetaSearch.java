@@ -0,0 +1,285 @@
+package com.viish.unlur.engine.ai;
+
+/*
+AlphaBetaSearch.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.Symmetry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Negamax alpha-beta search deepened iteratively until a time budget runs out.
+ * <p>
+ * No new iteration starts after the soft deadline, and the running one is abandoned at the
+ * hard deadline, the move of the last completed iteration being played. Each iteration starts
+ * with the best moves of the previous one thanks to the transposition table, which is keyed on
+ * canonical positions like the {@link Solver} one. The same Unlur specific pruning applies:
+ * immediate wins end the search, single threats must be blocked and moves completing the
+ * opponent's shape are left out.
+ */
+public class AlphaBetaSearch implements Player {
+    // Scores above this are wins, closer wins scoring higher
+    public static final int WIN = 30000;
+    public static final int MAX_EVALUATION = 20000;
+    private static final int MAX_DEPTH = 64;
+
+    private final TranspositionTable mTable;
+    private final Evaluator mEvaluator;
+    // The same evaluator when it has to follow every move
+    private final IncrementalEvaluator mIncremental;
+    private final SearchStats mStats;
+    private long mSoftMillis, mHardMillis;
+
+    private Board mBoard;
+    private int[][] mMoves;
+    private int[] mRootMoves;
+    private long[] mHistory;
+    private long mNodes, mProbes, mHits;
+    private long mHardDeadline;
+    private boolean mIsAborted;
+    // Best move of the root found by the current iteration, the table is lossy and may be shared
+    private int mRootMove;
+    private volatile boolean mIsStopped;
+    private volatile AtomicBoolean mCancelled;
+    // Flag of the running search
+    private AtomicBoolean mCancelFlag;
+
+    public AlphaBetaSearch(TranspositionTable table, Evaluator evaluator, long softMillis, long hardMillis) {
+        mTable = table;
+        mEvaluator = evaluator;
+        mIncremental = evaluator instanceof IncrementalEvaluator ? (IncrementalEvaluator) evaluator : null;
+        mStats = new SearchStats();
+        setTimeBudget(softMillis, hardMillis);
+    }
+
+    public void setTimeBudget(long softMillis, long hardMillis) {
+        mSoftMillis = softMillis;
+        mHardMillis = Math.max(softMillis, hardMillis);
+    }
+
+    public SearchStats getLastStats() {
+        return mStats;
+    }
+
+    /**
+     * Makes a running search return the move of its last completed iteration, from any thread.
+     */
+    public void stop() {
+        mIsStopped = true;
+    }
+
+    @Override
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        mCancelled = cancelled;
+    }
+
+    @Override
+    public int selectMove(Board board) {
+        if (mBoard == null || mBoard.getSize() != board.getSize()) {
+            mBoard = new Board(board.getSize());
+            mBoard.setSymmetricHashing(true);
+            mMoves = new int[MAX_DEPTH + 2][board.getCellCount() + 1];
+            mRootMoves = new int[board.getCellCount() + 1];
+            mHistory = new long[board.getIndexCount() + 1];
+        }
+        mBoard.copyFrom(board);
+        if (mIncremental != null) {
+            mIncremental.reset(mBoard);
+        }
+        mTable.newSearch();
+        for (int i = 0; i < mHistory.length; i++) {
+            mHistory[i] >>>= 2;
+        }
+        mNodes = 0;
+        mProbes = 0;
+        mHits = 0;
+        mIsAborted = false;
+        mIsStopped = false;
+        mCancelFlag = mCancelled;
+
+        long start = System.nanoTime();
+        long softDeadline = start + mSoftMillis * 1000000;
+        mHardDeadline = start + mHardMillis * 1000000;
+
+        int[] moves = mRootMoves;
+        int count = board.getLegalMoves(moves);
+        int best = count > 0 ? moves[0] : TranspositionTable.NO_MOVE;
+        int depth = 0;
+        while (depth < MAX_DEPTH && depth < board.getCellCount() + 1 - board.getMoveCount()) {
+            mRootMove = TranspositionTable.NO_MOVE;
+            int score = search(depth + 1, -WIN - 1, WIN + 1, 0);
+            if (mIsAborted) break;
+
+            depth++;
+            if (mRootMove != TranspositionTable.NO_MOVE) {
+                best = mRootMove;
+            }
+            // A proven result won't change with more depth
+            if (Math.abs(score) > MAX_EVALUATION || System.nanoTime() >= softDeadline) break;
+        }
+
+        mStats.set(mNodes, System.nanoTime() - start, 1, depth);
+        mStats.setTableStats(mProbes, mHits);
+        return best;
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        if ((++mNodes & 1023) == 0 && (mIsStopped || System.nanoTime() >= mHardDeadline
+                || (mCancelFlag != null && mCancelFlag.get()))) {
+            mIsAborted = true;
+        }
+        if (mIsAborted) return 0;
+
+        // Moves are stored as seen from the canonical position, wins relative to this position
+        Symmetry symmetry = mBoard.getSymmetry();
+        int transform = mBoard.getCanonicalSymmetry();
+        long hash = mBoard.getCanonicalHash();
+        long data = mTable.probe(hash);
+        int hashMove = TranspositionTable.NO_MOVE;
+        mProbes++;
+        if (data != 0) {
+            mHits++;
+            hashMove = symmetry.inverse(transform, TranspositionTable.getMove(data));
+            if (ply > 0 && TranspositionTable.getDepth(data) >= depth) {
+                int value = fromTable(TranspositionTable.getValue(data), ply);
+                int flag = TranspositionTable.getFlag(data);
+                if (flag == TranspositionTable.EXACT
+                        || (flag == TranspositionTable.LOWER_BOUND && value >= beta)
+                        || (flag == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                    return value;
+                }
+            }
+        }
+
+        if (depth == 0) {
+            int value = mEvaluator.evaluate(mBoard);
+            return Math.max(-MAX_EVALUATION, Math.min(MAX_EVALUATION, value));
+        }
+
+        int[] moves = mMoves[ply];
+        int count = mBoard.getLegalMoves(moves);
+        if (count == 0) return 0;
+
+        if (mBoard.isBlackChosen()) {
+            int color = mBoard.getColorToPlay();
+            int opponent = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+            int threats = 0;
+            int threat = -1;
+            int safe = 0;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                EndGame end = mBoard.peek(move, color);
+                if (end == EndGame.VICTORY) {
+                    if (ply == 0) mRootMove = move;
+                    return store(hash, symmetry.transform(transform, move), depth, WIN - ply - 1, TranspositionTable.EXACT, ply);
+                }
+                if (mBoard.peek(move, opponent) == EndGame.VICTORY) {
+                    threats++;
+                    threat = move;
+                }
+                if (end != EndGame.DEFEAT) {
+                    moves[safe++] = move;
+                }
+            }
+            if (threats > 1 || safe == 0) {
+                // The opponent wins next move whatever this player does
+                return store(hash, TranspositionTable.NO_MOVE, depth, -(WIN - ply - 2), TranspositionTable.EXACT, ply);
+            } else if (threats == 1) {
+                moves[0] = threat;
+                count = 1;
+            } else {
+                count = safe;
+            }
+        }
+
+        sortMoves(moves, count, hashMove);
+
+        int bestScore = -WIN - 1;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int flag = TranspositionTable.UPPER_BOUND;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            EndGame end = mBoard.play(move);
+            if (mIncremental != null) {
+                mIncremental.played(mBoard, move);
+            }
+            int score;
+            if (end == EndGame.VICTORY) {
+                score = WIN - ply - 1;
+            } else if (end == EndGame.DEFEAT) {
+                score = -(WIN - ply - 1);
+            } else {
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            }
+            mBoard.undo();
+            if (mIncremental != null) {
+                mIncremental.undone(mBoard, move);
+            }
+            if (mIsAborted) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+                flag = TranspositionTable.EXACT;
+            }
+            if (alpha >= beta) {
+                mHistory[move + 1] += (long) depth * depth;
+                flag = TranspositionTable.LOWER_BOUND;
+                break;
+            }
+        }
+        if (ply == 0) mRootMove = bestMove;
+        return store(hash, symmetry.transform(transform, bestMove), depth, bestScore, flag, ply);
+    }
+
+    private int store(long hash, int move, int depth, int score, int flag, int ply) {
+        mTable.store(hash, move, depth, toTable(score, ply), flag);
+        return score;
+    }
+
+    // Wins are stored as distances from the stored position rather than from the root
+    private static int toTable(int score, int ply) {
+        if (score > MAX_EVALUATION) return score + ply;
+        if (score < -MAX_EVALUATION) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MAX_EVALUATION) return score - ply;
+        if (score < -MAX_EVALUATION) return score + ply;
+        return score;
+    }
+
+    private void sortMoves(int[] moves, int count, int hashMove) {
+        // Insertion sort by history score, the move from the table going first
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            long score = move == hashMove ? Long.MAX_VALUE : mHistory[move + 1];
+            int j = i - 1;
+            while (j >= 0 && (moves[j] == hashMove ? Long.MAX_VALUE : mHistory[moves[j] + 1]) < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = move;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.viish.unlur.engine.ai;
+
+/*
+BookPlayer.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays the opening book move when the position is in the book and the move did well in
+ * enough games, else asks another player.
+ */
+public class BookPlayer implements Player {
+    public static final int DEFAULT_MIN_GAMES = 10;
+    public static final int DEFAULT_MIN_LOWER_BOUND = 300;
+
+    private final OpeningBook mBook;
+    private final Player mFallback;
+    private int mMinGames = DEFAULT_MIN_GAMES;
+    private int mMinLowerBound = DEFAULT_MIN_LOWER_BOUND;
+
+    public BookPlayer(OpeningBook book, Player fallback) {
+        mBook = book;
+        mFallback = fallback;
+    }
+
+    /**
+     * @param minGames       book moves played in fewer games are left to the other player
+     * @param minLowerBound  same for book moves whose score lower bound (see {@link OpeningBook#getLowerBound(Board)}) is below this, in permille
+     */
+    public void setThresholds(int minGames, int minLowerBound) {
+        mMinGames = minGames;
+        mMinLowerBound = minLowerBound;
+    }
+
+    @Override
+    public int selectMove(Board board) {
+        int move = mBook.getMove(board);
+        if (move != TranspositionTable.NO_MOVE && board.isLegal(move)
+                && mBook.getGames(board) >= mMinGames && mBook.getLowerBound(board) >= mMinLowerBound) {
+            return move;
+        }
+        return mFallback.selectMove(board);
+    }
+
+    @Override
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        mFallback.setCancelFlag(cancelled);
+    }
+}
@@ -0,0 +1,344 @@
+package com.viish.unlur.engine.ai;
+
+/*
+DistanceEvaluator.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Arrays;
+
+/**
+ * Scores a position by how many more stones each color needs to complete its shape, like the
+ * shortest path evaluations of Hex.
+ * <p>
+ * For each color and each side, a distance map tells how many empty cells a chain of that
+ * color needs to link every cell to the side: own stones are free and the other color's stones
+ * can't be crossed. White needs a cell close to two opposite sides, black a cell close to three
+ * alternate ones. The twelve maps are updated after each move, distances only dropping around
+ * the new stone for its color and only rising for the other color, where just the cells whose
+ * shortest paths all went through the stone are computed again. Every change is logged so
+ * that taking a move back restores the maps without any search.
+ */
+public class DistanceEvaluator implements IncrementalEvaluator {
+    private static final int INFINITE = 1 << 20;
+    private static final int BLOCKED = -1;
+    private static final int SCALE = 100;
+    private static final int MAPS = 2 * Board.SIDE_COUNT;
+
+    private Board mBoard;
+    private int mIndexCount;
+    // Map of a color and side at ((color - 1) * SIDE_COUNT + side) * indexCount
+    private int[] mDistances;
+    // Copies of the board stones and geometry, read far more often than the board changes
+    private int[] mColors;
+    private int[] mNeighbours;
+    private int[] mQueue;
+    private boolean[] mIsQueued;
+    private int mHead, mQueueSize;
+    private int[] mAffected;
+    private int[] mDeque;
+    private int mDequeHead, mDequeSize;
+    private int[] mAffectedMarks;
+    private int mAffectedMark;
+
+    // Changes as (position in mDistances, previous value) pairs, and where each move starts
+    private int[] mLog = new int[1024];
+    private int mLogCount;
+    private int[] mMoveMarks;
+
+    @Override
+    public void reset(Board board) {
+        mBoard = board;
+        if (mIndexCount != board.getIndexCount()) {
+            mIndexCount = board.getIndexCount();
+            mDistances = new int[MAPS * mIndexCount];
+            mColors = new int[mIndexCount];
+            mNeighbours = new int[mIndexCount * 6];
+            mQueue = new int[mIndexCount];
+            mIsQueued = new boolean[mIndexCount];
+            mAffected = new int[mIndexCount];
+            mDeque = new int[mIndexCount];
+            mAffectedMarks = new int[mIndexCount];
+            mMoveMarks = new int[board.getCellCount() + 2];
+        }
+        // The queue is empty between updates, but its head may be past a new array
+        mHead = 0;
+        mLogCount = 0;
+        for (int index = 0; index < mIndexCount; index++) {
+            boolean isValid = board.isValid(board.getQ(index), board.getR(index));
+            mColors[index] = isValid ? board.getColor(index) : Board.EMPTY;
+            for (int d = 0; d < 6; d++) {
+                mNeighbours[index * 6 + d] = isValid ? board.getNeighbour(index, d) : -1;
+            }
+        }
+
+        Arrays.fill(mDistances, INFINITE);
+        for (int map = 0; map < MAPS; map++) {
+            int color = map / Board.SIDE_COUNT + 1;
+            int side = 1 << (map % Board.SIDE_COUNT);
+            int base = map * mIndexCount;
+            for (int n = 0; n < board.getCellCount(); n++) {
+                int cell = board.getCell(n);
+                int cost = getCost(color, cell);
+                if (cost != BLOCKED && (board.getSides(cell) & side) != 0) {
+                    mDistances[base + cell] = cost;
+                    push(cell);
+                }
+            }
+            relax(color, base, false);
+        }
+    }
+
+    @Override
+    public void played(Board board, int move) {
+        mMoveMarks[board.getMoveCount() - 1] = mLogCount;
+        if (move == Board.STAY_BLACK) return;
+
+        int color = board.getColor(move);
+        mColors[move] = color;
+        int opponent = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        for (int side = 0; side < Board.SIDE_COUNT; side++) {
+            shorten(color, ((color - 1) * Board.SIDE_COUNT + side) * mIndexCount, 1 << side, move);
+            lengthen(opponent, ((opponent - 1) * Board.SIDE_COUNT + side) * mIndexCount, move);
+        }
+    }
+
+    @Override
+    public void undone(Board board, int move) {
+        if (move != Board.STAY_BLACK) {
+            mColors[move] = Board.EMPTY;
+        }
+        int mark = mMoveMarks[board.getMoveCount()];
+        while (mLogCount > mark) {
+            mLogCount -= 2;
+            mDistances[mLog[mLogCount]] = mLog[mLogCount + 1];
+        }
+    }
+
+    /**
+     * @return the distance of a cell to a side for a color, the number of empty cells on the way included
+     */
+    public int getDistance(int color, int side, int index) {
+        return mDistances[((color - 1) * Board.SIDE_COUNT + side) * mIndexCount + index];
+    }
+
+    /**
+     * @return the number of empty cells the color needs to fill to complete its shape, or a
+     * number larger than the board if it can't anymore
+     */
+    public int getNeed(int color) {
+        int need = INFINITE;
+        int s = Board.SIDE_COUNT;
+        if (color == Board.BLACK) {
+            need = Math.min(getJoinCost(color, 0, 2, 4), getJoinCost(color, 1, 3, 5));
+        } else {
+            for (int side = 0; side < s / 2; side++) {
+                need = Math.min(need, getJoinCost(color, side, side + s / 2, -1));
+            }
+        }
+        return need;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        if (!board.isBlackChosen()) return 0;
+
+        int color = board.getColorToPlay();
+        int opponent = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        int cells = board.getCellCount();
+        return (Math.min(getNeed(opponent), cells) - Math.min(getNeed(color), cells)) * SCALE;
+    }
+
+    /**
+     * @return the fewest empty cells linking some cell to two or three sides at once
+     */
+    private int getJoinCost(int color, int a, int b, int c) {
+        int mapA = ((color - 1) * Board.SIDE_COUNT + a) * mIndexCount;
+        int mapB = ((color - 1) * Board.SIDE_COUNT + b) * mIndexCount;
+        int mapC = c < 0 ? -1 : ((color - 1) * Board.SIDE_COUNT + c) * mIndexCount;
+        int best = INFINITE;
+        for (int n = 0; n < mBoard.getCellCount(); n++) {
+            int cell = mBoard.getCell(n);
+            int cost = getCost(color, cell);
+            if (cost == BLOCKED) continue;
+            // The joining cell is counted by each path
+            int total = mDistances[mapA + cell] + mDistances[mapB + cell] - cost;
+            if (mapC >= 0) total += mDistances[mapC + cell] - cost;
+            if (total < best) best = total;
+        }
+        return best;
+    }
+
+    private int getCost(int color, int index) {
+        int stone = mColors[index];
+        if (stone == Board.EMPTY) return 1;
+        return stone == color ? 0 : BLOCKED;
+    }
+
+    /**
+     * The cell just got a stone of the map color, which can only bring cells closer to the side.
+     */
+    private void shorten(int color, int base, int side, int index) {
+        int distance = (mBoard.getSides(index) & side) != 0 ? 0 : INFINITE;
+        for (int d = 0; d < 6; d++) {
+            int next = mNeighbours[index * 6 + d];
+            if (next >= 0 && getCost(color, next) != BLOCKED) {
+                distance = Math.min(distance, mDistances[base + next]);
+            }
+        }
+        if (distance < mDistances[base + index]) {
+            set(base + index, distance);
+            push(index);
+            relax(color, base, true);
+        }
+    }
+
+    /**
+     * The cell just got a stone of the other color, so the cells whose shortest paths all went
+     * through it are cleared and computed again from the cells around them.
+     */
+    private void lengthen(int color, int base, int index) {
+        if (mDistances[base + index] >= INFINITE) return;
+        int side = 1 << ((base / mIndexCount) % Board.SIDE_COUNT);
+
+        // Candidates are looked at by increasing distance, so a cell one step closer to the side
+        // is known to be affected or not when it decides whether a candidate keeps a path.
+        // Own stones being free, a candidate may rely on a cell at the same distance that isn't
+        // decided yet, and it is then cleared to be safe.
+        mAffectedMark += 2;
+        int seen = mAffectedMark;
+        int affected = mAffectedMark + 1;
+        int count = 0;
+        mAffected[count++] = index;
+        mAffectedMarks[index] = affected;
+        mDequeHead = 0;
+        mDequeSize = 0;
+        addCandidates(color, base, index, seen);
+        while (mDequeSize > 0) {
+            int cell = mDeque[mDequeHead];
+            mDequeHead = mDequeHead + 1 == mDeque.length ? 0 : mDequeHead + 1;
+            mDequeSize--;
+
+            int cost = getCost(color, cell);
+            int distance = mDistances[base + cell];
+            boolean isKept = (mBoard.getSides(cell) & side) != 0 && distance == cost;
+            for (int d = 0; d < 6 && !isKept && cost > 0; d++) {
+                int next = mNeighbours[cell * 6 + d];
+                isKept = next >= 0 && mAffectedMarks[next] != affected && getCost(color, next) != BLOCKED
+                        && mDistances[base + next] + cost == distance;
+            }
+            if (isKept) continue;
+
+            mAffectedMarks[cell] = affected;
+            mAffected[count++] = cell;
+            addCandidates(color, base, cell, seen);
+        }
+
+        for (int i = 0; i < count; i++) {
+            set(base + mAffected[i], INFINITE);
+        }
+        for (int i = 1; i < count; i++) {
+            int cell = mAffected[i];
+            int cost = getCost(color, cell);
+            int distance = (mBoard.getSides(cell) & side) != 0 ? cost : INFINITE;
+            for (int d = 0; d < 6; d++) {
+                int next = mNeighbours[cell * 6 + d];
+                if (next >= 0 && mAffectedMarks[next] != affected && getCost(color, next) != BLOCKED) {
+                    distance = Math.min(distance, mDistances[base + next] + cost);
+                }
+            }
+            if (distance < INFINITE) {
+                set(base + cell, distance);
+                push(cell);
+            }
+        }
+        relax(color, base, true);
+    }
+
+    /**
+     * Queues the neighbours whose distance may come from the cell, the ones at the same
+     * distance first.
+     */
+    private void addCandidates(int color, int base, int cell, int seen) {
+        int distance = mDistances[base + cell];
+        for (int d = 0; d < 6; d++) {
+            int next = mNeighbours[cell * 6 + d];
+            if (next < 0 || mAffectedMarks[next] >= seen) continue;
+            int cost = getCost(color, next);
+            if (cost == BLOCKED || mDistances[base + next] != distance + cost) continue;
+
+            mAffectedMarks[next] = seen;
+            if (cost == 0) {
+                mDequeHead = mDequeHead == 0 ? mDeque.length - 1 : mDequeHead - 1;
+                mDeque[mDequeHead] = next;
+            } else {
+                int tail = mDequeHead + mDequeSize;
+                mDeque[tail >= mDeque.length ? tail - mDeque.length : tail] = next;
+            }
+            mDequeSize++;
+        }
+    }
+
+    /**
+     * Propagates the distances of the queued cells, like a breadth-first search whose queue may
+     * see a cell again when its distance drops.
+     */
+    private void relax(int color, int base, boolean log) {
+        int[] distances = mDistances;
+        int[] neighbours = mNeighbours;
+        int[] colors = mColors;
+        while (mQueueSize > 0) {
+            int cell = mQueue[mHead];
+            mHead = mHead + 1 == mQueue.length ? 0 : mHead + 1;
+            mQueueSize--;
+            mIsQueued[cell] = false;
+
+            int distance = distances[base + cell];
+            for (int d = cell * 6; d < cell * 6 + 6; d++) {
+                int next = neighbours[d];
+                if (next < 0) continue;
+                int stone = colors[next];
+                if (stone != Board.EMPTY && stone != color) continue;
+                int value = stone == Board.EMPTY ? distance + 1 : distance;
+                if (value >= distances[base + next]) continue;
+                if (log) {
+                    set(base + next, value);
+                } else {
+                    distances[base + next] = value;
+                }
+                push(next);
+            }
+        }
+    }
+
+    private void push(int cell) {
+        if (mIsQueued[cell]) return;
+        mIsQueued[cell] = true;
+        int tail = mHead + mQueueSize;
+        mQueue[tail >= mQueue.length ? tail - mQueue.length : tail] = cell;
+        mQueueSize++;
+    }
+
+    private void set(int position, int value) {
+        if (mLogCount + 2 > mLog.length) {
+            mLog = Arrays.copyOf(mLog, mLog.length * 2);
+        }
+        mLog[mLogCount++] = position;
+        mLog[mLogCount++] = mDistances[position];
+        mDistances[position] = value;
+    }
+}
@@ -0,0 +1,30 @@
+package com.viish.unlur.engine.ai;
+
+/*
+Evaluator.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+/**
+ * Static evaluation of the positions where {@link AlphaBetaSearch} stops searching.
+ */
+public interface Evaluator {
+    /**
+     * @return a score for the player to move, positive when ahead, within +/- {@link AlphaBetaSearch#MAX_EVALUATION}
+     */
+    int evaluate(Board board);
+}
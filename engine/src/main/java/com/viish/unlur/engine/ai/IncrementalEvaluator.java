@@ -0,0 +1,41 @@
+package com.viish.unlur.engine.ai;
+
+/*
+IncrementalEvaluator.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+/**
+ * An evaluator keeping its own state about a board up to date move by move, which the search
+ * tells about every move it plays and takes back.
+ */
+public interface IncrementalEvaluator extends Evaluator {
+    /**
+     * Starts following a board from its current position.
+     */
+    void reset(Board board);
+
+    /**
+     * Called right after a move was played on the board being followed.
+     */
+    void played(Board board, int move);
+
+    /**
+     * Called right after a move was taken back on the board being followed.
+     */
+    void undone(Board board, int move);
+}
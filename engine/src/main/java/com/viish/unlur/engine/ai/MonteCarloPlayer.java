@@ -0,0 +1,505 @@
+package com.viish.unlur.engine.ai;
+
+/*
+MonteCarloPlayer.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monte Carlo Tree Search (UCT) with playouts answering bridge intrusions (see
+ * {@link PatternPlayout}), or purely random ones.
+ * <p>
+ * Search is parallelized at the root: each thread grows its own tree from the same position
+ * and the visit counts of the root moves are summed once the time is up, which needs no locking
+ * at all while searching. A single-threaded player searches in the calling thread. The search
+ * threads live as long as the player and are woken up for each search, so that searching
+ * allocates nothing once the trees are built.
+ * <p>
+ * Trees are kept from one search to the next: when the new position follows the previous one,
+ * the subtree of the moves played in between becomes the new root. {@link #ponder(Board)} grows
+ * the trees in the background while the opponent thinks, so that its reply is often already
+ * well explored when the next search starts. A search also stops early once the remaining time
+ * can't change which move is the most visited.
+ */
+public class MonteCarloPlayer implements Player {
+    private static final double EXPLORATION = 0.7;
+    // Child slots all the trees of a player may hold, and what a slot costs with its share of
+    // the nodes, arrays being copied as they grow
+    private static final long MAX_TREE_SLOTS = 1 << 23;
+    private static final long BYTES_PER_SLOT = 32;
+    // Part of the heap the trees may take
+    private static final int HEAP_SHARE = 4;
+    private static final long MAX_PONDER_MILLIS = 60000;
+    // The hard budget is spent in this many slices, checking in between if the search settled
+    private static final int EXTENSION_SLICES = 4;
+
+    private final int mThreads;
+    private long mSoftMillis, mHardMillis;
+    private long mMaxPlayouts;
+    private boolean mUsePatterns;
+    private Thread[] mThreadPool;
+    private final SearchStats mStats;
+    private long mSeed;
+
+    private Worker[] mWorkers;
+    private boolean mIsPondering;
+    // Guards the rounds below, each of them runs every worker once on the search threads
+    private final Object mLock = new Object();
+    private int mRound;
+    private int mRunning;
+    private boolean mIsShutdown;
+    private RuntimeException mFailure;
+    private int[] mVisits;
+    private double[] mWins;
+    private volatile boolean mIsStopped;
+    private volatile AtomicBoolean mCancelled;
+
+    public MonteCarloPlayer(long timeMillis) {
+        this(Runtime.getRuntime().availableProcessors(), timeMillis);
+    }
+
+    public MonteCarloPlayer(int threads, long timeMillis) {
+        mThreads = threads;
+        mSoftMillis = timeMillis;
+        mHardMillis = timeMillis;
+        mStats = new SearchStats();
+        mSeed = System.nanoTime();
+        mMaxPlayouts = Long.MAX_VALUE;
+        mUsePatterns = true;
+    }
+
+    /**
+     * Stops each search thread after this many playouts even if there is time left, which makes
+     * the strength of the player independent from the machine.
+     */
+    public void setMaxPlayouts(long playouts) {
+        mMaxPlayouts = playouts;
+    }
+
+    /**
+     * Chooses between {@link PatternPlayout} (the default) and {@link RandomPlayout}, the trees
+     * are dropped when it changes.
+     */
+    public void setPatternPlayouts(boolean usePatterns) {
+        if (usePatterns != mUsePatterns) {
+            mUsePatterns = usePatterns;
+            mWorkers = null;
+        }
+    }
+
+    /**
+     * Searches run for the soft budget, and up to the hard one when the most visited move
+     * isn't the one with the best win rate at that point.
+     */
+    public void setTimeBudget(long softMillis, long hardMillis) {
+        mSoftMillis = softMillis;
+        mHardMillis = Math.max(softMillis, hardMillis);
+    }
+
+    public void setSeed(long seed) {
+        mSeed = seed;
+    }
+
+    public SearchStats getLastStats() {
+        return mStats;
+    }
+
+    /**
+     * Stops the search threads, the player can't be used afterwards.
+     */
+    public synchronized void shutdown() {
+        stop();
+        synchronized (mLock) {
+            mIsShutdown = true;
+            mLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        mCancelled = cancelled;
+    }
+
+    /**
+     * Makes a running search return as soon as possible and stops pondering, from any thread.
+     */
+    public void stop() {
+        mIsStopped = true;
+    }
+
+    /**
+     * Starts growing the trees from the position in the background, until the next search,
+     * {@link #stopPondering()} or {@link #stop()}. Returns immediately.
+     */
+    public synchronized void ponder(Board board) {
+        stopPondering();
+        if (board.isGameFinished()) return;
+
+        mIsStopped = false;
+        long deadline = System.nanoTime() + MAX_PONDER_MILLIS * 1000000;
+        prepareWorkers(board, deadline, Long.MAX_VALUE);
+        startRound();
+        mIsPondering = true;
+    }
+
+    /**
+     * Stops pondering and waits for the search threads to be done with it.
+     */
+    public synchronized void stopPondering() {
+        if (!mIsPondering) return;
+        mIsStopped = true;
+        mIsPondering = false;
+        awaitRound();
+    }
+
+    @Override
+    public synchronized int selectMove(Board board) {
+        stopPondering();
+        mIsStopped = false;
+        long start = System.nanoTime();
+        prepareWorkers(board, start + mSoftMillis * 1000000, mMaxPlayouts);
+        long playouts = runWorkers();
+
+        if (mVisits == null || mVisits.length != board.getIndexCount() + 1) {
+            mVisits = new int[board.getIndexCount() + 1];
+            mWins = new double[board.getIndexCount() + 1];
+        }
+        int[] visits = mVisits;
+        double[] wins = mWins;
+        mergeRoots(visits, wins);
+        int best = getMostVisited(board, visits);
+        // While the most visited move doesn't look like the best one, give it time to settle
+        long hardDeadline = start + mHardMillis * 1000000;
+        long slice = (mHardMillis - mSoftMillis) * 1000000 / EXTENSION_SLICES;
+        while (slice > 0 && !mIsStopped && !isCancelled() && best != getBestValued(board, visits, wins)) {
+            long now = System.nanoTime();
+            if (now >= hardDeadline) break;
+            for (Worker worker : mWorkers) {
+                worker.extend(Math.min(hardDeadline, now + slice));
+            }
+            long previous = playouts;
+            playouts = runWorkers();
+            // Every worker already made its playouts
+            if (playouts == previous) break;
+            mergeRoots(visits, wins);
+            best = getMostVisited(board, visits);
+        }
+        mStats.set(playouts, System.nanoTime() - start, mThreads, getPrincipalVariationLength(mWorkers[0].mTree));
+        return best;
+    }
+
+    /**
+     * @return the number of playouts made since the workers were prepared
+     */
+    private long runWorkers() {
+        if (mThreads == 1) {
+            mWorkers[0].run();
+        } else {
+            startRound();
+            awaitRound();
+        }
+        long playouts = 0;
+        for (Worker worker : mWorkers) {
+            playouts += worker.mPlayouts;
+        }
+        return playouts;
+    }
+
+    /**
+     * Sums the visits and wins of the root moves of every tree, indexed by move + 1.
+     */
+    private void mergeRoots(int[] visits, double[] wins) {
+        Arrays.fill(visits, 0);
+        Arrays.fill(wins, 0);
+        for (Worker worker : mWorkers) {
+            NodeArena tree = worker.mTree;
+            for (int i = 0; i < tree.getChildCount(NodeArena.ROOT); i++) {
+                int child = tree.getChild(NodeArena.ROOT, i);
+                visits[tree.getMove(child) + 1] += tree.getVisits(child);
+                wins[tree.getMove(child) + 1] += tree.getWins(child);
+            }
+        }
+    }
+
+    private boolean isCancelled() {
+        AtomicBoolean cancelled = mCancelled;
+        return cancelled != null && cancelled.get();
+    }
+
+    private static int getMostVisited(Board board, int[] visits) {
+        int best = -1;
+        int bestVisits = -1;
+        for (int i = 0; i < visits.length; i++) {
+            int move = i - 1;
+            if (visits[i] > bestVisits && board.isLegal(move)) {
+                best = move;
+                bestVisits = visits[i];
+            }
+        }
+        return best;
+    }
+
+    private static int getBestValued(Board board, int[] visits, double[] wins) {
+        int best = -1;
+        double bestValue = -1;
+        for (int i = 0; i < visits.length; i++) {
+            int move = i - 1;
+            if (visits[i] > 0 && wins[i] / visits[i] > bestValue && board.isLegal(move)) {
+                best = move;
+                bestValue = wins[i] / visits[i];
+            }
+        }
+        return best;
+    }
+
+    private static int getPrincipalVariationLength(NodeArena tree) {
+        int length = 0;
+        int node = NodeArena.ROOT;
+        while (tree.getChildCount(node) > 0) {
+            int best = tree.getChild(node, 0);
+            for (int i = 1; i < tree.getChildCount(node); i++) {
+                int child = tree.getChild(node, i);
+                if (tree.getVisits(child) > tree.getVisits(best)) best = child;
+            }
+            node = best;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @return the slots all the trees may hold, so that they fit in small heaps too
+     */
+    private static long getMaxTreeSlots() {
+        return Math.min(MAX_TREE_SLOTS, Runtime.getRuntime().maxMemory() / HEAP_SHARE / BYTES_PER_SLOT);
+    }
+
+    private void prepareWorkers(Board board, long deadline, long maxPlayouts) {
+        if (mWorkers == null || mWorkers[0].mRootBoard.getSize() != board.getSize()) {
+            mWorkers = new Worker[mThreads];
+            for (int i = 0; i < mThreads; i++) {
+                mWorkers[i] = new Worker(board.getSize(), getMaxTreeSlots() / mThreads);
+            }
+        }
+        for (Worker worker : mWorkers) {
+            worker.prepare(board, deadline, maxPlayouts, mSeed++);
+        }
+    }
+
+    /**
+     * Runs each worker once on its search thread, starting the threads the first time.
+     */
+    private void startRound() {
+        if (mThreadPool == null) {
+            mThreadPool = new Thread[mThreads];
+            for (int i = 0; i < mThreads; i++) {
+                mThreadPool[i] = new Thread(new SearchThread(i), "Unlur-MCTS");
+                mThreadPool[i].setDaemon(true);
+                mThreadPool[i].setPriority(Thread.MIN_PRIORITY);
+                mThreadPool[i].start();
+            }
+        }
+        synchronized (mLock) {
+            mRound++;
+            mRunning = mThreads;
+            mFailure = null;
+            mLock.notifyAll();
+        }
+    }
+
+    private void awaitRound() {
+        boolean isInterrupted = false;
+        synchronized (mLock) {
+            while (mRunning > 0) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    // The trees are in use until the workers are done, stop them first
+                    mIsStopped = true;
+                    isInterrupted = true;
+                }
+            }
+            if (mFailure != null) {
+                throw new IllegalStateException("Search failed", mFailure);
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class SearchThread implements Runnable {
+        private final int mIndex;
+
+        SearchThread(int index) {
+            mIndex = index;
+        }
+
+        @Override
+        public void run() {
+            int round = 0;
+            while (true) {
+                synchronized (mLock) {
+                    try {
+                        while (round == mRound && !mIsShutdown) {
+                            mLock.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (mIsShutdown) return;
+                    round = mRound;
+                }
+
+                RuntimeException failure = null;
+                try {
+                    mWorkers[mIndex].run();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                synchronized (mLock) {
+                    if (failure != null) mFailure = failure;
+                    if (--mRunning == 0) mLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final Board mRootBoard;
+        private final Board mBoard;
+        private final long mMaxNodes;
+        private final Random mRandom;
+        private final Playout mPlayout;
+        private final NodeArena mTree;
+        private boolean mHasTree;
+        private long mDeadline;
+        private long mMaxPlayouts;
+        private long mPlayouts;
+        private long mStart;
+        // Stopping once the most visited move can't change only makes sense for the soft budget
+        private boolean mIsExtended;
+
+        Worker(int size, long maxSlots) {
+            mRootBoard = new Board(size);
+            mBoard = new Board(size);
+            // Nodes have at most a slot per cell and staying black
+            mMaxNodes = maxSlots / (mBoard.getCellCount() + 1);
+            mRandom = new Random();
+            mPlayout = mUsePatterns ? new PatternPlayout(mBoard) : new RandomPlayout(mBoard.getCellCount());
+            mTree = new NodeArena(mBoard.getCellCount());
+        }
+
+        /**
+         * Moves the root to the position, keeping the subtree of the moves played since the
+         * previous root if there is one.
+         */
+        void prepare(Board board, long deadline, long maxPlayouts, long seed) {
+            mDeadline = deadline;
+            mMaxPlayouts = maxPlayouts;
+            mPlayouts = 0;
+            mStart = System.nanoTime();
+            mIsExtended = false;
+            mRandom.setSeed(seed);
+
+            int root = mHasTree ? NodeArena.ROOT : NodeArena.NONE;
+            int from = mRootBoard.getMoveCount();
+            if (root != NodeArena.NONE && board.getMoveCount() >= from) {
+                for (int i = 0; i < from && root != NodeArena.NONE; i++) {
+                    if (board.getMove(i) != mRootBoard.getMove(i)) root = NodeArena.NONE;
+                }
+                for (int i = from; i < board.getMoveCount() && root != NodeArena.NONE; i++) {
+                    root = mTree.findChild(root, board.getMove(i));
+                }
+            } else {
+                root = NodeArena.NONE;
+            }
+
+            mRootBoard.copyFrom(board);
+            if (root == NodeArena.NONE) {
+                mTree.clear(mRootBoard);
+            } else {
+                mTree.keep(root);
+            }
+            mHasTree = true;
+        }
+
+        /**
+         * Lets the next run go on with the same tree and playout count until a later deadline.
+         */
+        void extend(long deadline) {
+            mDeadline = deadline;
+            mIsExtended = true;
+        }
+
+        @Override
+        public void run() {
+            NodeArena tree = mTree;
+
+            // Checking the clock is cheap compared to a playout, but not free
+            long iterations = 0;
+            while (mPlayouts < mMaxPlayouts && ((iterations++ & 15) != 0 || System.nanoTime() < mDeadline)) {
+                if (mIsStopped || isCancelled() || Thread.currentThread().isInterrupted()) break;
+                if ((iterations & 1023) == 0 && !mIsExtended && isDecided()) break;
+                mBoard.copyFrom(mRootBoard);
+                int node = NodeArena.ROOT;
+
+                // Selection
+                while (tree.getUntriedCount(node) == 0 && tree.getChildCount(node) > 0) {
+                    node = tree.selectChild(node, EXPLORATION);
+                    mBoard.play(tree.getMove(node));
+                }
+
+                // Expansion, unless the tree is full
+                if (tree.getUntriedCount(node) > 0 && tree.getNodeCount() < mMaxNodes) {
+                    node = tree.expand(node, mBoard, mRandom);
+                }
+
+                // Simulation
+                int winner = mPlayout.run(mBoard, mRandom);
+                mPlayouts++;
+
+                // Backpropagation
+                tree.update(node, winner);
+            }
+        }
+
+        /**
+         * @return true if the playouts left before the deadline can't make another move the most visited
+         */
+        private boolean isDecided() {
+            long now = System.nanoTime();
+            double left = (double) mPlayouts * (mDeadline - now) / Math.max(1, now - mStart);
+            int best = 0;
+            int second = 0;
+            for (int i = 0; i < mTree.getChildCount(NodeArena.ROOT); i++) {
+                int visits = mTree.getVisits(mTree.getChild(NodeArena.ROOT, i));
+                if (visits > best) {
+                    second = best;
+                    best = visits;
+                } else if (visits > second) {
+                    second = visits;
+                }
+            }
+            return mTree.getUntriedCount(NodeArena.ROOT) == 0 && best - second > left;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.viish.unlur.engine.ai;
+
+/*
+NodeArena.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Search tree of {@link MonteCarloPlayer} kept in flat arrays, nodes and their children being
+ * referred to by index. The arrays grow while the tree does and are reused from one search to
+ * the next, so a search allocates nothing once they are big enough.
+ * <p>
+ * The legal moves of a node are stored in a block of slots when it is created. The first ones
+ * hold the children already in the tree, the others the moves not tried yet. Nodes and blocks
+ * are appended in creation order, a child always coming after its parent, which lets
+ * {@link #keep(int)} compact a subtree in place.
+ */
+final class NodeArena {
+    static final int ROOT = 0;
+    static final int NONE = -1;
+    private static final int INITIAL_NODES = 1024;
+
+    // Per node
+    private int[] mParents;
+    private int[] mMoves;
+    // Player who made the move leading to the node
+    private byte[] mPlayers;
+    private int[] mVisits;
+    // Wins count two, draws one
+    private int[] mScores;
+    private int[] mFirstSlots;
+    private int[] mSlotCounts;
+    private int[] mChildCounts;
+    private int mNodeCount;
+
+    // Per slot, the move and the child node if it was tried
+    private int[] mSlotMoves;
+    private int[] mSlotNodes;
+    private int mSlotCount;
+
+    private int[] mRemap;
+    private final int[] mBuffer;
+
+    NodeArena(int cellCount) {
+        mBuffer = new int[cellCount + 1];
+        mParents = new int[INITIAL_NODES];
+        mMoves = new int[INITIAL_NODES];
+        mPlayers = new byte[INITIAL_NODES];
+        mVisits = new int[INITIAL_NODES];
+        mScores = new int[INITIAL_NODES];
+        mFirstSlots = new int[INITIAL_NODES];
+        mSlotCounts = new int[INITIAL_NODES];
+        mChildCounts = new int[INITIAL_NODES];
+        mRemap = new int[INITIAL_NODES];
+        mSlotMoves = new int[INITIAL_NODES * 8];
+        mSlotNodes = new int[INITIAL_NODES * 8];
+    }
+
+    /**
+     * Starts a new tree whose root is the position.
+     */
+    void clear(Board board) {
+        mNodeCount = 0;
+        mSlotCount = 0;
+        addNode(NONE, Board.STAY_BLACK, 1 - board.getPlayer(), board);
+    }
+
+    int getNodeCount() {
+        return mNodeCount;
+    }
+
+    int getMove(int node) {
+        return mMoves[node];
+    }
+
+    int getVisits(int node) {
+        return mVisits[node];
+    }
+
+    double getWins(int node) {
+        return mScores[node] / 2.0;
+    }
+
+    int getChildCount(int node) {
+        return mChildCounts[node];
+    }
+
+    int getChild(int node, int n) {
+        return mSlotNodes[mFirstSlots[node] + n];
+    }
+
+    int getUntriedCount(int node) {
+        return mSlotCounts[node] - mChildCounts[node];
+    }
+
+    /**
+     * @return the child reached by the move, or NONE if it isn't in the tree
+     */
+    int findChild(int node, int move) {
+        int first = mFirstSlots[node];
+        for (int i = first; i < first + mChildCounts[node]; i++) {
+            if (mSlotMoves[i] == move) return mSlotNodes[i];
+        }
+        return NONE;
+    }
+
+    int selectChild(int node, double exploration) {
+        double logVisits = Math.log(mVisits[node]);
+        int first = mFirstSlots[node];
+        int best = NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = first; i < first + mChildCounts[node]; i++) {
+            int child = mSlotNodes[i];
+            double visits = mVisits[child];
+            double value = mScores[child] / (2 * visits) + exploration * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds the child of a random untried move and plays the move on the board.
+     *
+     * @return the new child
+     */
+    int expand(int node, Board board, Random random) {
+        int first = mFirstSlots[node] + mChildCounts[node];
+        int pick = first + random.nextInt(mSlotCounts[node] - mChildCounts[node]);
+        int move = mSlotMoves[pick];
+        mSlotMoves[pick] = mSlotMoves[first];
+        mSlotMoves[first] = move;
+
+        int player = board.getPlayer();
+        board.play(move);
+        int child = addNode(node, move, player, board);
+        // The slots may have moved while growing
+        mSlotNodes[mFirstSlots[node] + mChildCounts[node]++] = child;
+        return child;
+    }
+
+    /**
+     * Counts a playout for the node and its ancestors.
+     *
+     * @param winner the winning player, or -1 for a draw
+     */
+    void update(int node, int winner) {
+        while (node != NONE) {
+            mVisits[node]++;
+            if (winner == mPlayers[node]) {
+                mScores[node] += 2;
+            } else if (winner < 0) {
+                mScores[node]++;
+            }
+            node = mParents[node];
+        }
+    }
+
+    /**
+     * Drops everything but the subtree of the node, which becomes the root.
+     */
+    void keep(int node) {
+        if (node == ROOT) return;
+
+        // Parents come first, so whether a node is kept is known before its children are seen
+        int count = 0;
+        Arrays.fill(mRemap, 0, node, NONE);
+        for (int i = node; i < mNodeCount; i++) {
+            mRemap[i] = i == node || (mParents[i] != NONE && mRemap[mParents[i]] != NONE) ? count++ : NONE;
+        }
+
+        // Nothing is moved to a place that is still to be read
+        int slots = 0;
+        for (int i = node; i < mNodeCount; i++) {
+            int to = mRemap[i];
+            if (to == NONE) continue;
+
+            mParents[to] = i == node ? NONE : mRemap[mParents[i]];
+            mMoves[to] = mMoves[i];
+            mPlayers[to] = mPlayers[i];
+            mVisits[to] = mVisits[i];
+            mScores[to] = mScores[i];
+            mChildCounts[to] = mChildCounts[i];
+            mSlotCounts[to] = mSlotCounts[i];
+            int first = mFirstSlots[i];
+            System.arraycopy(mSlotMoves, first, mSlotMoves, slots, mSlotCounts[i]);
+            for (int j = 0; j < mChildCounts[i]; j++) {
+                mSlotNodes[slots + j] = mRemap[mSlotNodes[first + j]];
+            }
+            mFirstSlots[to] = slots;
+            slots += mSlotCounts[i];
+        }
+        mNodeCount = count;
+        mSlotCount = slots;
+    }
+
+    private int addNode(int parent, int move, int player, Board board) {
+        if (mNodeCount == mParents.length) {
+            int capacity = mNodeCount * 2;
+            mParents = Arrays.copyOf(mParents, capacity);
+            mMoves = Arrays.copyOf(mMoves, capacity);
+            mPlayers = Arrays.copyOf(mPlayers, capacity);
+            mVisits = Arrays.copyOf(mVisits, capacity);
+            mScores = Arrays.copyOf(mScores, capacity);
+            mFirstSlots = Arrays.copyOf(mFirstSlots, capacity);
+            mSlotCounts = Arrays.copyOf(mSlotCounts, capacity);
+            mChildCounts = Arrays.copyOf(mChildCounts, capacity);
+            mRemap = new int[capacity];
+        }
+
+        int count = board.isGameFinished() ? 0 : board.getLegalMoves(mBuffer);
+        if (mSlotCount + count > mSlotMoves.length) {
+            int capacity = Math.max(mSlotMoves.length * 2, mSlotCount + count);
+            mSlotMoves = Arrays.copyOf(mSlotMoves, capacity);
+            mSlotNodes = Arrays.copyOf(mSlotNodes, capacity);
+        }
+        System.arraycopy(mBuffer, 0, mSlotMoves, mSlotCount, count);
+
+        int node = mNodeCount++;
+        mParents[node] = parent;
+        mMoves[node] = move;
+        mPlayers[node] = (byte) player;
+        mVisits[node] = 0;
+        mScores[node] = 0;
+        mFirstSlots[node] = mSlotCount;
+        mSlotCounts[node] = count;
+        mChildCounts[node] = 0;
+        mSlotCount += count;
+        return node;
+    }
+}
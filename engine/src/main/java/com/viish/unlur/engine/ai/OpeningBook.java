@@ -0,0 +1,240 @@
+package com.viish.unlur.engine.ai;
+
+/*
+OpeningBook.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.record.GameDatabase;
+import com.viish.unlur.engine.record.GameRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Best known move of the opening positions of a board size, learnt from recorded games.
+ * <p>
+ * The file is a header followed by fixed-width entries sorted by canonical position hash: the
+ * hash, the move as seen from the canonical position, the score of the move in permille for the
+ * player making it and the number of games it was played in. Symmetric games teach the same
+ * entries. Lookups are binary searches in the memory-mapped file.
+ */
+public class OpeningBook {
+    private static final int MAGIC = 0x554E4C42; // "UNLB"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 16;
+    private static final int ENTRY_LENGTH = 16;
+    // z for the 95% lower bound of a move score
+    private static final double Z = 1.96;
+
+    private final int mSize;
+    private final int mCount;
+    private final ByteBuffer mEntries;
+
+    private OpeningBook(int size, int count, ByteBuffer entries) {
+        mSize = size;
+        mCount = count;
+        mEntries = entries;
+    }
+
+    public static OpeningBook open(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            ByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+            if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(12) != VERSION) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            int size = buffer.getInt(4);
+            int count = buffer.getInt(8);
+            if ((long) count * ENTRY_LENGTH + HEADER_LENGTH > buffer.limit()) {
+                throw new IOException("Truncated opening book: " + file);
+            }
+            return new OpeningBook(size, count, buffer);
+        }
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    public int getPositionCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the book move of the position, or {@link TranspositionTable#NO_MOVE} if it isn't in the book
+     */
+    public int getMove(Board board) {
+        int entry = find(board);
+        if (entry < 0) return TranspositionTable.NO_MOVE;
+        return board.getSymmetry().inverse(board.getCanonicalSymmetry(), mEntries.getShort(entry + 8));
+    }
+
+    /**
+     * @return the score in permille of the book move for the player to move, or -1 if the position isn't in the book
+     */
+    public int getScore(Board board) {
+        int entry = find(board);
+        return entry < 0 ? -1 : mEntries.getShort(entry + 10);
+    }
+
+    /**
+     * @return the number of games the book move was played in, or 0 if the position isn't in the book
+     */
+    public int getGames(Board board) {
+        int entry = find(board);
+        return entry < 0 ? 0 : mEntries.getInt(entry + 12);
+    }
+
+    /**
+     * @return the 95% lower bound in permille of the score of the book move, or -1 if the position isn't in the book
+     */
+    public int getLowerBound(Board board) {
+        int entry = find(board);
+        if (entry < 0) return -1;
+        return (int) (1000 * getLowerBound(mEntries.getShort(entry + 10) / 1000.0, mEntries.getInt(entry + 12)));
+    }
+
+    /**
+     * @return the Wilson lower bound of a score over a number of games, so that lucky rare moves don't look good
+     */
+    static double getLowerBound(double score, double games) {
+        return (score + Z * Z / (2 * games) - Z * Math.sqrt(score * (1 - score) / games + Z * Z / (4 * games * games))) / (1 + Z * Z / games);
+    }
+
+    private int find(Board board) {
+        if (board.getSize() != mSize || board.isGameFinished()) return -1;
+
+        long hash = board.getCanonicalHash();
+        int low = 0;
+        int high = mCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = HEADER_LENGTH + middle * ENTRY_LENGTH;
+            long value = mEntries.getLong(entry);
+            if (value < hash) {
+                low = middle + 1;
+            } else if (value > hash) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Learns the opening moves of the games of a size from game files and writes the book.
+     *
+     * @param maxPlies  depth of the book
+     * @param minGames  positions whose best move was played in fewer games are left out
+     * @return the number of positions written
+     */
+    public static int build(File[] games, int size, int maxPlies, int minGames, File output) throws IOException {
+        Board board = new Board(size);
+        board.setSymmetricHashing(true);
+        GameRecord record = new GameRecord();
+        Map<Long, Position> positions = new HashMap<>();
+        for (File file : games) {
+            GameDatabase database = GameDatabase.open(file);
+            for (int n = 0; n < database.getGameCount(); n++) {
+                database.read(n, record);
+                if (record.getSize() != size || record.getWinningPlayer() < 0) continue;
+
+                board.reset();
+                for (int ply = 0; ply < record.getMoveCount() && ply < maxPlies; ply++) {
+                    long hash = board.getCanonicalHash();
+                    Position position = positions.get(hash);
+                    if (position == null) {
+                        position = new Position(board.getIndexCount());
+                        positions.put(hash, position);
+                    }
+                    int move = record.getMove(board, ply);
+                    int canonicalMove = board.getSymmetry().transform(board.getCanonicalSymmetry(), move);
+                    position.add(canonicalMove, record.getWinningPlayer() == board.getPlayer());
+                    board.play(move);
+                }
+            }
+        }
+
+        long[] hashes = new long[positions.size()];
+        int count = 0;
+        for (Map.Entry<Long, Position> entry : positions.entrySet()) {
+            Position position = entry.getValue();
+            if (position.mGames[position.getBestMove()] >= minGames) {
+                hashes[count++] = entry.getKey();
+            }
+        }
+        Arrays.sort(hashes, 0, count);
+
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            data.writeInt(MAGIC);
+            data.writeInt(size);
+            data.writeInt(count);
+            data.writeInt(VERSION);
+            for (int i = 0; i < count; i++) {
+                Position position = positions.get(hashes[i]);
+                int move = position.getBestMove();
+                data.writeLong(hashes[i]);
+                data.writeShort(move - 1);
+                data.writeShort((int) (1000L * position.mWins[move] / position.mGames[move]));
+                data.writeInt(position.mGames[move]);
+            }
+        }
+        return count;
+    }
+
+    private static class Position {
+        // Indexed by move + 1 so that stay black is 0
+        private final int[] mGames;
+        private final int[] mWins;
+
+        Position(int indexCount) {
+            mGames = new int[indexCount + 1];
+            mWins = new int[indexCount + 1];
+        }
+
+        void add(int move, boolean isWin) {
+            mGames[move + 1]++;
+            if (isWin) mWins[move + 1]++;
+        }
+
+        /**
+         * @return the move + 1 with the best lower bound of its score
+         */
+        int getBestMove() {
+            int best = -1;
+            double bestBound = -1;
+            for (int i = 0; i < mGames.length; i++) {
+                if (mGames[i] == 0) continue;
+                double bound = getLowerBound((double) mWins[i] / mGames[i], mGames[i]);
+                if (bound > bestBound) {
+                    best = i;
+                    bestBound = bound;
+                }
+            }
+            return best;
+        }
+    }
+}
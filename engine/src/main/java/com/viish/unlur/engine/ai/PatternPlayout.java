@@ -0,0 +1,157 @@
+package com.viish.unlur.engine.ai;
+
+/*
+PatternPlayout.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Random;
+
+/**
+ * Plays random moves, except when the last move intruded a bridge of the player to move: the
+ * other cell of the bridge is then played to keep the two stones connected. The sides count as
+ * stones of the player, so a stone one row away from a side is kept connected to it the same way.
+ * <p>
+ * Each empty cell has a code made of the contents of its six neighbours, 2 bits each, which is
+ * updated as stones are put down and looked up in a table built once for all board sizes.
+ */
+public class PatternPlayout implements Playout {
+    private static final int OFF_BOARD = 3;
+    private static final int CODE_COUNT = 1 << 12;
+    // Whether an empty cell with the given neighbours saves a bridge, for black then white
+    private static final boolean[][] SAVES = new boolean[2][CODE_COUNT];
+
+    static {
+        for (int code = 0; code < CODE_COUNT; code++) {
+            SAVES[0][code] = isSave(code, Board.BLACK);
+            SAVES[1][code] = isSave(code, Board.WHITE);
+        }
+    }
+
+    private final int[] mEmpty;
+    private final int[] mPositions;
+    private final int[] mCodes;
+    // Codes of the empty board, with only the cells outside of it
+    private final int[] mBorderCodes;
+
+    public PatternPlayout(Board board) {
+        mEmpty = new int[board.getCellCount()];
+        mPositions = new int[board.getIndexCount()];
+        mCodes = new int[board.getIndexCount()];
+        mBorderCodes = new int[board.getIndexCount()];
+        for (int i = 0; i < board.getCellCount(); i++) {
+            int cell = board.getCell(i);
+            for (int d = 0; d < 6; d++) {
+                if (board.getNeighbour(cell, d) < 0) {
+                    mBorderCodes[cell] |= OFF_BOARD << (2 * d);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int run(Board board, Random random) {
+        System.arraycopy(mBorderCodes, 0, mCodes, 0, mCodes.length);
+        int count = 0;
+        for (int i = 0; i < board.getCellCount(); i++) {
+            int cell = board.getCell(i);
+            int color = board.getColor(cell);
+            if (color == Board.EMPTY) {
+                mPositions[cell] = count;
+                mEmpty[count++] = cell;
+            } else {
+                addStone(board, cell, color);
+            }
+        }
+
+        int last = board.getMoveCount() > 0 ? board.getLastMove() : Board.STAY_BLACK;
+        while (!board.isGameFinished()) {
+            boolean canStayBlack = board.canStayBlack();
+            if (count == 0 && !canStayBlack) {
+                return -1;
+            }
+
+            // Bridges need stones of both colors to be intruded
+            int cell = last >= 0 && !canStayBlack ? getSave(board, last, random) : -1;
+            if (cell < 0) {
+                // Last slot stands for staying black, side cells are drawn again until someone does
+                int pick = random.nextInt(canStayBlack ? count + 1 : count);
+                if (pick == count) {
+                    board.stayBlack();
+                    last = Board.STAY_BLACK;
+                    continue;
+                }
+                cell = mEmpty[pick];
+                if (canStayBlack && board.isSide(cell)) continue;
+            }
+
+            int position = mPositions[cell];
+            int moved = mEmpty[--count];
+            mEmpty[position] = moved;
+            mPositions[moved] = position;
+            addStone(board, cell, board.getColorToPlay());
+            board.play(cell);
+            last = cell;
+        }
+        return board.getWinningPlayer();
+    }
+
+    /**
+     * @return a random empty neighbour of the last move saving a bridge of the player to move, or -1 if there is none
+     */
+    private int getSave(Board board, int last, Random random) {
+        boolean[] saves = SAVES[board.getColorToPlay() - 1];
+        int save = -1;
+        int found = 0;
+        for (int d = 0; d < 6; d++) {
+            int next = board.getNeighbour(last, d);
+            // Reservoir sampling keeps the choice fair without a list of the saves
+            if (next >= 0 && board.isEmpty(next) && saves[mCodes[next]] && random.nextInt(++found) == 0) {
+                save = next;
+            }
+        }
+        return save;
+    }
+
+    private void addStone(Board board, int cell, int color) {
+        for (int d = 0; d < 6; d++) {
+            int next = board.getNeighbour(cell, d);
+            if (next >= 0) {
+                // Seen from the neighbour, the stone lies in the opposite direction
+                mCodes[next] |= color << (2 * ((d + 3) % 6));
+            }
+        }
+    }
+
+    /**
+     * A bridge is two stones sharing two empty neighbours, which stay connected as long as the
+     * player answers an intrusion in one of them with the other.
+     */
+    private static boolean isSave(int code, int color) {
+        int opponent = Board.BLACK + Board.WHITE - color;
+        for (int d = 0; d < 6; d++) {
+            int left = (code >>> (2 * d)) & 3;
+            int middle = (code >>> (2 * ((d + 1) % 6))) & 3;
+            int right = (code >>> (2 * ((d + 2) % 6))) & 3;
+            if (middle != opponent) continue;
+            if ((left == color && (right == color || right == OFF_BOARD)) || (left == OFF_BOARD && right == color)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.viish.unlur.engine.ai;
+
+/*
+Player.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Something able to pick a move for the player to move on a board.
+ */
+public interface Player {
+    /**
+     * The board must not be modified and the game must not be finished.
+     *
+     * @return a legal move, either a cell index or {@link Board#STAY_BLACK}
+     */
+    int selectMove(Board board);
+
+    /**
+     * Makes the following searches return as soon as possible, with any legal move, once the
+     * flag is set. The flag is never cleared by the player, so setting it from another thread
+     * even before a search starts cancels that search.
+     *
+     * @param cancelled the flag, or null to run searches to the end
+     */
+    void setCancelFlag(AtomicBoolean cancelled);
+}
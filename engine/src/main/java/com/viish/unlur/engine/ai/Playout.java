@@ -0,0 +1,34 @@
+package com.viish.unlur.engine.ai;
+
+/*
+Playout.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Random;
+
+/**
+ * Plays a game to its end to estimate who a position favours, for {@link MonteCarloPlayer}.
+ */
+public interface Playout {
+    /**
+     * Plays the game to its end on the given board, which is modified.
+     *
+     * @return the winning player, or -1 if the board got full without a winner
+     */
+    int run(Board board, Random random);
+}
@@ -0,0 +1,65 @@
+package com.viish.unlur.engine.ai;
+
+/*
+RandomPlayout.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.Random;
+
+/**
+ * Plays uniformly random legal moves until the game ends.
+ */
+public class RandomPlayout implements Playout {
+    private final int[] mEmpty;
+
+    public RandomPlayout(int cellCount) {
+        mEmpty = new int[cellCount];
+    }
+
+    @Override
+    public int run(Board board, Random random) {
+        int count = 0;
+        for (int i = 0; i < board.getCellCount(); i++) {
+            int cell = board.getCell(i);
+            if (board.isEmpty(cell)) {
+                mEmpty[count++] = cell;
+            }
+        }
+
+        while (!board.isGameFinished()) {
+            boolean canStayBlack = board.canStayBlack();
+            if (count == 0 && !canStayBlack) {
+                return -1;
+            }
+
+            // Last slot stands for staying black, side cells are drawn again until someone does
+            int pick = random.nextInt(canStayBlack ? count + 1 : count);
+            if (pick == count) {
+                board.stayBlack();
+                continue;
+            }
+
+            int cell = mEmpty[pick];
+            if (!canStayBlack || !board.isSide(cell)) {
+                mEmpty[pick] = mEmpty[--count];
+                board.play(cell);
+            }
+        }
+        return board.getWinningPlayer();
+    }
+}
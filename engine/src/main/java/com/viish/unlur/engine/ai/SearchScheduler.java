@@ -0,0 +1,134 @@
+package com.viish.unlur.engine.ai;
+
+/*
+SearchScheduler.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the searches of an AI in the background and ponders while its opponent thinks.
+ * <p>
+ * Every call returns immediately and takes a copy of the board. Searches run one after the
+ * other on a thread of the scheduler, and their move is handed to the listener through the
+ * callback executor, typically posting to the UI thread. {@link #cancel()} drops whatever is
+ * running or queued: no listener is called for a search started before it.
+ * <p>
+ * Each task carries the cancel flag of the moment it was queued, which the player checks while
+ * searching (see {@link Player#setCancelFlag(AtomicBoolean)}), so a cancel stops any kind of
+ * search and can't be missed whenever it happens.
+ */
+public class SearchScheduler {
+    public interface Listener {
+        void onMoveSelected(int move);
+    }
+
+    private final Player mPlayer;
+    private final MonteCarloPlayer mPonderer;
+    private final Executor mCallbackExecutor;
+    private final ExecutorService mExecutor;
+    // Set by the next cancel, then replaced for the tasks queued afterwards
+    private AtomicBoolean mCancelled = new AtomicBoolean();
+
+    /**
+     * @param ponderer the tree search behind the player, used to ponder, or null if the player doesn't search with it
+     */
+    public SearchScheduler(Player player, MonteCarloPlayer ponderer, Executor callbackExecutor) {
+        mPlayer = player;
+        mPonderer = ponderer;
+        mCallbackExecutor = callbackExecutor;
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Unlur-AI");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Selects a move for the player to move, reusing what pondering found about the position.
+     */
+    public void search(Board board, final Listener listener) {
+        final Board copy = new Board(board);
+        final AtomicBoolean cancelled = getCancelFlag();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (cancelled.get()) return;
+                // Whatever the player, it gets the whole CPU
+                if (mPonderer != null) {
+                    mPonderer.stopPondering();
+                }
+                mPlayer.setCancelFlag(cancelled);
+                final int move = mPlayer.selectMove(copy);
+                mCallbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!cancelled.get()) {
+                            listener.onMoveSelected(move);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Ponders on the position while the opponent is to move, until the next search or cancel.
+     */
+    public void ponder(Board board) {
+        if (mPonderer == null) return;
+
+        final Board copy = new Board(board);
+        final AtomicBoolean cancelled = getCancelFlag();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (cancelled.get()) return;
+                mPonderer.setCancelFlag(cancelled);
+                mPonderer.ponder(copy);
+            }
+        });
+    }
+
+    private synchronized AtomicBoolean getCancelFlag() {
+        return mCancelled;
+    }
+
+    /**
+     * Stops pondering and the running search, whatever the player, and drops its move.
+     */
+    public synchronized void cancel() {
+        mCancelled.set(true);
+        mCancelled = new AtomicBoolean();
+    }
+
+    public void shutdown() {
+        cancel();
+        mExecutor.shutdownNow();
+        if (mPonderer != null) {
+            mPonderer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.viish.unlur.engine.ai;
+
+/*
+SearchStats.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import java.util.Locale;
+
+/**
+ * Figures about the last search made by an AI, to tune it on slow devices: nodes are playouts
+ * for a tree search and positions for an alpha-beta search.
+ */
+public class SearchStats {
+    private long mNodes;
+    private long mElapsedNanos;
+    private int mThreads;
+    private int mDepth;
+    private long mTableProbes, mTableHits;
+
+    void set(long nodes, long elapsedNanos, int threads, int depth) {
+        mNodes = nodes;
+        mElapsedNanos = elapsedNanos;
+        mThreads = threads;
+        mDepth = depth;
+        mTableProbes = 0;
+        mTableHits = 0;
+    }
+
+    void setTableStats(long probes, long hits) {
+        mTableProbes = probes;
+        mTableHits = hits;
+    }
+
+    public long getNodes() {
+        return mNodes;
+    }
+
+    public long getElapsedMillis() {
+        return mElapsedNanos / 1000000;
+    }
+
+    public int getThreads() {
+        return mThreads;
+    }
+
+    /**
+     * @return the last completed depth of an alpha-beta search, or the length of the principal variation of a tree search
+     */
+    public int getDepth() {
+        return mDepth;
+    }
+
+    /**
+     * @return the share of transposition table probes that found an entry, 0 if the table wasn't used
+     */
+    public double getTableHitRate() {
+        if (mTableProbes == 0) return 0;
+        return (double) mTableHits / mTableProbes;
+    }
+
+    public double getNodesPerSecond() {
+        if (mElapsedNanos == 0) return 0;
+        return mNodes * 1e9 / mElapsedNanos;
+    }
+
+    public double getNodesPerSecondPerThread() {
+        if (mThreads == 0) return 0;
+        return getNodesPerSecond() / mThreads;
+    }
+
+    @Override
+    public String toString() {
+        String stats = String.format(Locale.US, "%d nodes in %d ms on %d threads (%.0f/s, %.0f/s per thread), depth %d",
+                mNodes, getElapsedMillis(), mThreads, getNodesPerSecond(), getNodesPerSecondPerThread(), mDepth);
+        if (mTableProbes > 0) {
+            stats += String.format(Locale.US, ", %.1f%% table hits", 100 * getTableHitRate());
+        }
+        return stats;
+    }
+}
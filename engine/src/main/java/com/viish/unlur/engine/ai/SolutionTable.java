@@ -0,0 +1,219 @@
+package com.viish.unlur.engine.ai;
+
+/*
+SolutionTable.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Solved positions of a board size, as a sorted array of canonical position hashes and a bit
+ * array telling for each of them whether the player to move wins.
+ * <p>
+ * A table built from a position holds its proof tree: every position the winner can be in
+ * while following the proof, with every answer of the loser. Perfect play from there is a
+ * lookup per legal move.
+ */
+public class SolutionTable {
+    private static final int MAGIC = 0x554E4C43; // "UNLC", canonical hashes
+
+    private final int mSize;
+    private final long[] mHashes;
+    private final long[] mWins;
+
+    private SolutionTable(int size, long[] hashes, long[] wins) {
+        mSize = size;
+        mHashes = hashes;
+        mWins = wins;
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    public int getPositionCount() {
+        return mHashes.length;
+    }
+
+    /**
+     * @return WIN or LOSS for the player to move, or UNKNOWN if the position isn't in the table
+     */
+    public int lookup(Board board) {
+        if (board.getSize() != mSize) return Solver.UNKNOWN;
+
+        int i = Arrays.binarySearch(mHashes, board.getCanonicalHash());
+        if (i < 0) return Solver.UNKNOWN;
+        return (mWins[i >>> 6] & (1L << i)) != 0 ? Solver.WIN : Solver.LOSS;
+    }
+
+    /**
+     * @param moves scratch buffer for the legal moves
+     * @return a move winning the game for the player to move, or {@link TranspositionTable#NO_MOVE} if none is known
+     */
+    public int getWinningMove(Board board, int[] moves) {
+        if (board.isGameFinished()) return TranspositionTable.NO_MOVE;
+
+        int count = board.getLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            EndGame end = board.play(move);
+            int result = end == EndGame.NOPE ? lookup(board) : Solver.UNKNOWN;
+            board.undo();
+            if (end == EndGame.VICTORY || result == Solver.LOSS) {
+                return move;
+            }
+        }
+        return TranspositionTable.NO_MOVE;
+    }
+
+    /**
+     * Solves the position and extracts its proof tree, the board is left untouched.
+     *
+     * @return the table, or null if the solver couldn't solve a position within the node limit
+     */
+    public static SolutionTable build(Board board, Solver solver, long nodeLimit) {
+        Builder builder = new Builder(solver, nodeLimit);
+        Board copy = new Board(board);
+        copy.setSymmetricHashing(true);
+        if (!builder.extract(copy)) return null;
+        return builder.toTable(board.getSize());
+    }
+
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeInt(mSize);
+        data.writeInt(mHashes.length);
+        for (long hash : mHashes) {
+            data.writeLong(hash);
+        }
+        for (long wins : mWins) {
+            data.writeLong(wins);
+        }
+        data.flush();
+    }
+
+    public static SolutionTable read(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a solution table");
+        }
+        int size = data.readInt();
+        int count = data.readInt();
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = data.readLong();
+        }
+        long[] wins = new long[(count + 63) >>> 6];
+        for (int i = 0; i < wins.length; i++) {
+            wins[i] = data.readLong();
+        }
+        return new SolutionTable(size, hashes, wins);
+    }
+
+    private static class Builder {
+        private final Solver mSolver;
+        private final long mNodeLimit;
+        private final Set<Long> mVisited = new HashSet<>();
+        private long[] mHashes = new long[1024];
+        private boolean[] mResults = new boolean[1024];
+        private int mCount;
+
+        Builder(Solver solver, long nodeLimit) {
+            mSolver = solver;
+            mNodeLimit = nodeLimit;
+        }
+
+        boolean extract(Board board) {
+            if (!mVisited.add(board.getCanonicalHash())) return true;
+
+            int result = mSolver.solve(board, mNodeLimit);
+            if (result == Solver.UNKNOWN) return false;
+            add(board.getCanonicalHash(), result == Solver.WIN);
+
+            if (result == Solver.WIN) {
+                // Follow the winning move only
+                int move = mSolver.getBestMove();
+                boolean ok = true;
+                if (board.play(move) == EndGame.NOPE) {
+                    ok = extract(board);
+                }
+                board.undo();
+                return ok;
+            }
+
+            // Every answer of the loser, each one being a win for the other player
+            int[] moves = new int[board.getCellCount() + 1];
+            int count = board.getLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                boolean ok = true;
+                if (board.play(moves[i]) == EndGame.NOPE) {
+                    ok = extract(board);
+                }
+                board.undo();
+                if (!ok) return false;
+            }
+            return true;
+        }
+
+        private void add(long hash, boolean win) {
+            if (mCount == mHashes.length) {
+                mHashes = Arrays.copyOf(mHashes, mCount * 2);
+                mResults = Arrays.copyOf(mResults, mCount * 2);
+            }
+            mHashes[mCount] = hash;
+            mResults[mCount] = win;
+            mCount++;
+        }
+
+        SolutionTable toTable(int size) {
+            // Sort hashes along with their result
+            Integer[] order = new Integer[mCount];
+            for (int i = 0; i < mCount; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Long.compare(mHashes[a], mHashes[b]);
+                }
+            });
+
+            long[] entries = new long[mCount];
+            long[] wins = new long[(mCount + 63) >>> 6];
+            for (int i = 0; i < mCount; i++) {
+                entries[i] = mHashes[order[i]];
+                if (mResults[order[i]]) {
+                    wins[i >>> 6] |= 1L << i;
+                }
+            }
+            return new SolutionTable(size, entries, wins);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.viish.unlur.engine.ai;
+
+/*
+Solver.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.Symmetry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Proves whether the player to move wins, with a depth-first boolean search.
+ * <p>
+ * Unlur has no draw so a position is either won or lost for the player to move, and search
+ * only has to find one winning move or refute all of them. A few rules keep the tree small once
+ * someone stayed black: a move completing a shape ends the search, moves making the mover lose
+ * are never tried, and if the opponent threatens to complete a shape the only move worth
+ * playing is the threatened cell (two threats and the position is lost). Proven results go to a
+ * transposition table under the canonical hash of the position, so symmetric positions are
+ * solved once, and the table can be shared with other solvers running at the same time.
+ */
+public class Solver {
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+
+    private final TranspositionTable mTable;
+    private Board mBoard;
+    private int[][] mMoves;
+    private long[] mHistory;
+
+    private long mNodes, mNodeLimit;
+    private volatile boolean mIsStopped;
+    private volatile AtomicBoolean mCancelled;
+    private int mBestMove;
+    // Flag of the running solve
+    private AtomicBoolean mCancelFlag;
+
+    public Solver(TranspositionTable table) {
+        mTable = table;
+    }
+
+    /**
+     * Stops a solve running in another thread, which then returns UNKNOWN.
+     */
+    public void stop() {
+        mIsStopped = true;
+    }
+
+    /**
+     * Makes the following solves return UNKNOWN once the flag is set, see {@link Player#setCancelFlag(AtomicBoolean)}.
+     */
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        mCancelled = cancelled;
+    }
+
+    /**
+     * @return the number of positions visited by the last solve
+     */
+    public long getNodes() {
+        return mNodes;
+    }
+
+    /**
+     * @return the winning move found by the last solve, if it returned WIN
+     */
+    public int getBestMove() {
+        return mBestMove;
+    }
+
+    /**
+     * Solves the position, the board is left untouched.
+     *
+     * @param nodeLimit maximum number of positions to visit before giving up
+     * @return WIN or LOSS for the player to move, or UNKNOWN if the limit was reached first
+     */
+    public int solve(Board board, long nodeLimit) {
+        if (mBoard == null || mBoard.getSize() != board.getSize()) {
+            mBoard = new Board(board.getSize());
+            mBoard.setSymmetricHashing(true);
+            mMoves = new int[board.getCellCount() + 2][board.getCellCount() + 1];
+            mHistory = new long[board.getIndexCount() + 1];
+        }
+        mBoard.copyFrom(board);
+        mNodes = 0;
+        mNodeLimit = nodeLimit;
+        mIsStopped = false;
+        mCancelFlag = mCancelled;
+        mBestMove = TranspositionTable.NO_MOVE;
+
+        if (board.isGameFinished()) return LOSS;
+
+        int result = search(0);
+        // The table is lossy and may be shared, so the move is recorded by the search itself
+        if (result == WIN && !board.isLegal(mBestMove)) return UNKNOWN;
+        return result;
+    }
+
+    private int search(int ply) {
+        if (++mNodes > mNodeLimit || mIsStopped || (mCancelFlag != null && mCancelFlag.get())) {
+            return UNKNOWN;
+        }
+
+        // Moves are stored as seen from the canonical position
+        Symmetry symmetry = mBoard.getSymmetry();
+        int transform = mBoard.getCanonicalSymmetry();
+        long hash = mBoard.getCanonicalHash();
+        long data = mTable.probe(hash);
+        int hashMove = TranspositionTable.NO_MOVE;
+        if (data != 0) {
+            hashMove = symmetry.inverse(transform, TranspositionTable.getMove(data));
+            if (TranspositionTable.getFlag(data) == TranspositionTable.EXACT) {
+                if (TranspositionTable.getValue(data) <= 0) return LOSS;
+                if (ply == 0) mBestMove = hashMove;
+                return WIN;
+            }
+        }
+
+        int[] moves = mMoves[ply];
+        int count = mBoard.getLegalMoves(moves);
+
+        // Nobody can touch a side, hence complete a shape, before someone stayed black
+        if (mBoard.isBlackChosen()) {
+            int color = mBoard.getColorToPlay();
+            int opponent = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+            int threats = 0;
+            int threat = -1;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (mBoard.peek(move, color) == EndGame.VICTORY) {
+                    if (ply == 0) mBestMove = move;
+                    return store(hash, symmetry.transform(transform, move), 0, WIN);
+                }
+                if (mBoard.peek(move, opponent) == EndGame.VICTORY) {
+                    threats++;
+                    threat = move;
+                }
+            }
+            if (threats > 1) {
+                return store(hash, TranspositionTable.NO_MOVE, 0, LOSS);
+            } else if (threats == 1) {
+                moves[0] = threat;
+                count = 1;
+            }
+        }
+
+        sortMoves(moves, count, hashMove);
+
+        long startNodes = mNodes;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move != Board.STAY_BLACK && mBoard.isBlackChosen() && mBoard.peek(move, mBoard.getColorToPlay()) == EndGame.DEFEAT) {
+                continue;
+            }
+
+            mBoard.play(move);
+            int result = search(ply + 1);
+            mBoard.undo();
+
+            if (result == UNKNOWN) {
+                return UNKNOWN;
+            } else if (result == LOSS) {
+                mHistory[move + 1] += mNodes - startNodes;
+                if (ply == 0) mBestMove = move;
+                return store(hash, symmetry.transform(transform, move), mNodes - startNodes, WIN);
+            }
+        }
+        return store(hash, TranspositionTable.NO_MOVE, mNodes - startNodes, LOSS);
+    }
+
+    private int store(long hash, int move, long nodes, int result) {
+        // Bigger proofs are more expensive to redo, so they are stored as deeper
+        int effort = 64 - Long.numberOfLeadingZeros(nodes);
+        mTable.store(hash, move, effort, result == WIN ? 1 : -1, TranspositionTable.EXACT);
+        return result;
+    }
+
+    private void sortMoves(int[] moves, int count, int hashMove) {
+        // Insertion sort by history score, the move from the table going first
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            long score = move == hashMove ? Long.MAX_VALUE : mHistory[move + 1];
+            int j = i - 1;
+            while (j >= 0 && (moves[j] == hashMove ? Long.MAX_VALUE : mHistory[moves[j] + 1]) < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = move;
+        }
+    }
+}
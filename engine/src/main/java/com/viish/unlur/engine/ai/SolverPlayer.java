@@ -0,0 +1,74 @@
+package com.viish.unlur.engine.ai;
+
+/*
+SolverPlayer.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Perfect play when the position can be solved: moves come from a solution table if there is
+ * one, else from the solver within a node limit, and from another player when neither knows a
+ * winning move.
+ */
+public class SolverPlayer implements Player {
+    private final Solver mSolver;
+    private final long mNodeLimit;
+    private final Player mFallback;
+    private SolutionTable mSolutionTable;
+    private Board mBoard;
+    private int[] mMoves;
+
+    public SolverPlayer(Solver solver, long nodeLimit, Player fallback) {
+        mSolver = solver;
+        mNodeLimit = nodeLimit;
+        mFallback = fallback;
+    }
+
+    public void setSolutionTable(SolutionTable table) {
+        mSolutionTable = table;
+    }
+
+    @Override
+    public int selectMove(Board board) {
+        if (mSolutionTable != null && mSolutionTable.getSize() == board.getSize()) {
+            if (mBoard == null || mBoard.getSize() != board.getSize()) {
+                mBoard = new Board(board.getSize());
+                mBoard.setSymmetricHashing(true);
+                mMoves = new int[board.getCellCount() + 1];
+            }
+            mBoard.copyFrom(board);
+            int move = mSolutionTable.getWinningMove(mBoard, mMoves);
+            if (move != TranspositionTable.NO_MOVE) {
+                return move;
+            }
+        }
+
+        if (mSolver.solve(board, mNodeLimit) == Solver.WIN) {
+            return mSolver.getBestMove();
+        }
+        // Lost against perfect play, or too hard to tell
+        return mFallback.selectMove(board);
+    }
+
+    @Override
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        mSolver.setCancelFlag(cancelled);
+        mFallback.setCancelFlag(cancelled);
+    }
+}
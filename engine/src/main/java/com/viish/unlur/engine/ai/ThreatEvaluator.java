@@ -0,0 +1,52 @@
+package com.viish.unlur.engine.ai;
+
+/*
+ThreatEvaluator.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+
+/**
+ * Counts the cells where each player would complete a shape, and the cells where they would
+ * complete the other player's shape and lose. Nothing can be told before someone stayed black.
+ */
+public class ThreatEvaluator implements Evaluator {
+    private static final int THREAT = 100;
+    private static final int FORBIDDEN = 10;
+
+    @Override
+    public int evaluate(Board board) {
+        if (!board.isBlackChosen()) return 0;
+
+        int color = board.getColorToPlay();
+        int opponent = color == Board.BLACK ? Board.WHITE : Board.BLACK;
+        int score = 0;
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int cell = board.getCell(n);
+            if (!board.isEmpty(cell)) continue;
+            score += value(board.peek(cell, color));
+            score -= value(board.peek(cell, opponent));
+        }
+        return score;
+    }
+
+    private static int value(EndGame end) {
+        if (end == EndGame.VICTORY) return THREAT;
+        if (end == EndGame.DEFEAT) return -FORBIDDEN;
+        return 0;
+    }
+}
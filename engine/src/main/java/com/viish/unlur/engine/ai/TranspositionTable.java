@@ -0,0 +1,131 @@
+package com.viish.unlur.engine.ai;
+
+/*
+TranspositionTable.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+/**
+ * Fixed-size hash table of search results, shared by any number of search threads without locks.
+ * <p>
+ * Entries are two longs in a flat array: the position hash XORed with the data, then the data.
+ * A reader only trusts an entry if XORing both words gives back the hash it looked for, so an
+ * entry torn by two threads writing at the same time just reads as a miss.
+ * Slots go by pairs: the first one keeps the deepest result (or any result from an older
+ * search), the second one always takes the latest result that didn't make it in the first.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    public static final int NO_MOVE = -2;
+
+    private static final long VALID = 1L << 63;
+    private static final int DEPTH_SHIFT = 16;
+    private static final int VALUE_SHIFT = 24;
+    private static final int FLAG_SHIFT = 40;
+    private static final int GENERATION_SHIFT = 42;
+
+    private final long[] mTable;
+    private final int mMask;
+    private volatile int mGeneration;
+
+    /**
+     * @param log2Entries the table holds 2^log2Entries entries of 16 bytes each
+     */
+    public TranspositionTable(int log2Entries) {
+        if (log2Entries < 1 || log2Entries > 28) {
+            throw new IllegalArgumentException("Unsupported table size 2^" + log2Entries);
+        }
+        mTable = new long[2 << log2Entries];
+        // Index of the first slot of a pair, in longs
+        mMask = ((1 << log2Entries) - 1) & ~1;
+    }
+
+    /**
+     * Makes the results of previous searches replaceable whatever their depth.
+     */
+    public void newSearch() {
+        mGeneration = (mGeneration + 1) & 0xFF;
+    }
+
+    public void clear() {
+        for (int i = 0; i < mTable.length; i++) {
+            mTable[i] = 0;
+        }
+    }
+
+    /**
+     * @return the data stored for this hash, to be read with the static getters, or 0 if there is none
+     */
+    public long probe(long hash) {
+        int slot = ((int) hash & mMask) << 1;
+        for (int i = slot; i < slot + 4; i += 2) {
+            long data = mTable[i + 1];
+            if ((mTable[i] ^ data) == hash && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param move best move found, a cell index, {@link com.viish.unlur.engine.Board#STAY_BLACK} or NO_MOVE
+     * @param depth remaining depth the value was searched to, 0 to 255
+     * @param value between -32768 and 32767
+     * @param flag EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long hash, int move, int depth, int value, int flag) {
+        int generation = mGeneration;
+        long data = VALID
+                | ((long) (move + 2) & 0xFFFF)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) ((value + 32768) & 0xFFFF) << VALUE_SHIFT)
+                | ((long) (flag & 0x3) << FLAG_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+
+        int slot = ((int) hash & mMask) << 1;
+        long current = mTable[slot + 1];
+        boolean sameKey = (mTable[slot] ^ current) == hash;
+        if (current == 0 || sameKey || getGeneration(current) != generation || getDepth(current) <= depth) {
+            mTable[slot] = hash ^ data;
+            mTable[slot + 1] = data;
+        } else {
+            mTable[slot + 2] = hash ^ data;
+            mTable[slot + 3] = data;
+        }
+    }
+
+    public static int getMove(long data) {
+        return (int) (data & 0xFFFF) - 2;
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int getValue(long data) {
+        return (int) ((data >>> VALUE_SHIFT) & 0xFFFF) - 32768;
+    }
+
+    public static int getFlag(long data) {
+        return (int) (data >>> FLAG_SHIFT) & 0x3;
+    }
+
+    private static int getGeneration(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+}
@@ -0,0 +1,186 @@
+package com.viish.unlur.engine.record;
+
+/*
+GameDatabase.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only view of a game file, memory-mapped so that games are decoded straight from the
+ * page cache, in any order, without loading the file in the heap. Reads are thread-safe.
+ * <p>
+ * A game file holds a header followed by the {@link GameRecord} encoded games, and comes with
+ * an index file of the same name plus ".idx" holding the offset of each game as a long.
+ * Files larger than 2 GB are mapped as several overlapping segments.
+ */
+public class GameDatabase {
+    private static final int MAGIC = 0x554E4C47; // "UNLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    // Segments overlap by this much so that no record is split between two of them
+    public static final int MAX_RECORD_LENGTH = 1 << 20;
+    private static final int INDEX_SEGMENT_SHIFT = SEGMENT_SHIFT - 3;
+
+    private final ByteBuffer[] mData;
+    private final LongBuffer[] mIndex;
+    private final int mGameCount;
+
+    private GameDatabase(ByteBuffer[] data, LongBuffer[] index, int gameCount) {
+        mData = data;
+        mIndex = index;
+        mGameCount = gameCount;
+    }
+
+    public static File getIndexFile(File file) {
+        return new File(file.getPath() + ".idx");
+    }
+
+    public static GameDatabase open(File file) throws IOException {
+        try (RandomAccessFile dataFile = new RandomAccessFile(file, "r");
+             RandomAccessFile indexFile = new RandomAccessFile(getIndexFile(file), "r")) {
+            FileChannel dataChannel = dataFile.getChannel();
+            long dataLength = dataChannel.size();
+            if (dataLength < HEADER_LENGTH) {
+                throw new IOException("Not a game file: " + file);
+            }
+            ByteBuffer[] data = new ByteBuffer[(int) ((dataLength - 1) >>> SEGMENT_SHIFT) + 1];
+            for (int i = 0; i < data.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                long length = Math.min(dataLength - start, (1L << SEGMENT_SHIFT) + MAX_RECORD_LENGTH);
+                data[i] = dataChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            if (data[0].getInt(0) != MAGIC || data[0].getInt(4) != VERSION) {
+                throw new IOException("Not a game file: " + file);
+            }
+
+            // Games whose index entry was written but not their data are ignored
+            FileChannel indexChannel = indexFile.getChannel();
+            long count = Math.min(indexChannel.size() >>> 3, Integer.MAX_VALUE);
+            LongBuffer[] index = new LongBuffer[(int) (count >>> INDEX_SEGMENT_SHIFT) + 1];
+            for (int i = 0; i < index.length; i++) {
+                long start = (long) i << INDEX_SEGMENT_SHIFT;
+                long length = Math.min(count - start, 1L << INDEX_SEGMENT_SHIFT);
+                index[i] = indexChannel.map(FileChannel.MapMode.READ_ONLY, start << 3, length << 3).asLongBuffer();
+            }
+            while (count > 0 && getOffset(index, (int) count - 1) >= dataLength) {
+                count--;
+            }
+            return new GameDatabase(data, index, (int) count);
+        }
+    }
+
+    public int getGameCount() {
+        return mGameCount;
+    }
+
+    /**
+     * Decodes the n-th game into the record.
+     */
+    public void read(int n, GameRecord record) {
+        if (n < 0 || n >= mGameCount) {
+            throw new IndexOutOfBoundsException("Game " + n + " out of " + mGameCount);
+        }
+        long offset = getOffset(mIndex, n);
+        record.decode(mData[(int) (offset >>> SEGMENT_SHIFT)], (int) (offset & SEGMENT_MASK));
+    }
+
+    private static long getOffset(LongBuffer[] index, int n) {
+        return index[n >>> INDEX_SEGMENT_SHIFT].get(n & ((1 << INDEX_SEGMENT_SHIFT) - 1));
+    }
+
+    /**
+     * Appends games to a game file and its index, creating them if needed. Appends are buffered
+     * and thread-safe, the data of a game always reaches the disk before its index entry.
+     */
+    public static class Writer implements Closeable {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final FileChannel mData, mIndex;
+        private final ByteBuffer mDataBuffer, mIndexBuffer;
+        private long mOffset;
+
+        public Writer(File file) throws IOException {
+            mData = new RandomAccessFile(file, "rw").getChannel();
+            mIndex = new RandomAccessFile(getIndexFile(file), "rw").getChannel();
+            mDataBuffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, MAX_RECORD_LENGTH));
+            mIndexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            if (mData.size() == 0) {
+                mIndex.truncate(0);
+                mDataBuffer.putInt(MAGIC).putInt(VERSION);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                mData.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    close();
+                    throw new IOException("Not a game file: " + file);
+                }
+                // Drops a partially written index entry
+                mIndex.truncate(mIndex.size() & ~7L);
+            }
+            mOffset = mData.size() + mDataBuffer.position();
+            mData.position(mData.size());
+            mIndex.position(mIndex.size());
+        }
+
+        public synchronized void append(GameRecord record) throws IOException {
+            int length = record.getEncodedLength();
+            if (length > MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Game record too long: " + length + " bytes");
+            }
+            if (mDataBuffer.remaining() < length || mIndexBuffer.remaining() < 8) {
+                flush();
+            }
+            record.encode(mDataBuffer);
+            mIndexBuffer.putLong(mOffset);
+            mOffset += length;
+        }
+
+        public synchronized void flush() throws IOException {
+            write(mData, mDataBuffer);
+            write(mIndex, mIndexBuffer);
+        }
+
+        private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                if (mData.isOpen()) flush();
+            } finally {
+                mData.close();
+                mIndex.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.viish.unlur.engine.record;
+
+/*
+GameRecord.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A game as its board size, moves and result, independent from the layout of {@link Board}.
+ * <p>
+ * Encoded as varints: the size, the move count and one token per move, followed by a result
+ * byte. Token 0 is the stay-black choice and any other token is 1 + row * lines + column of
+ * the axial coordinates, which fits in a single byte up to size 6.
+ * Records are mutable so that reading millions of them doesn't allocate.
+ */
+public class GameRecord {
+    public static final int STAY_BLACK_TOKEN = 0;
+    // Result byte of a game that isn't over
+    private static final int NO_RESULT = 0xFF;
+
+    private int mSize;
+    private int[] mTokens = new int[16];
+    private int mMoveCount;
+    private int mWinningPlayer = -1;
+    // Decoding position
+    private int mPosition;
+
+    public GameRecord() {
+    }
+
+    public GameRecord(Board board) {
+        set(board);
+    }
+
+    /**
+     * Records the history and result of a board.
+     */
+    public void set(Board board) {
+        mSize = board.getSize();
+        mMoveCount = 0;
+        ensureCapacity(board.getMoveCount());
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int move = board.getMove(i);
+            mTokens[mMoveCount++] = move == Board.STAY_BLACK ? STAY_BLACK_TOKEN
+                    : token(mSize, board.getQ(move), board.getR(move));
+        }
+        mWinningPlayer = board.getWinningPlayer();
+    }
+
+    /**
+     * Resets the board, which must have the size of the record, and plays the recorded moves.
+     */
+    public void replay(Board board) {
+        if (board.getSize() != mSize) {
+            throw new IllegalArgumentException("Record of size " + mSize + " replayed on a board of size " + board.getSize());
+        }
+        board.reset();
+        for (int i = 0; i < mMoveCount; i++) {
+            board.play(getMove(board, i));
+        }
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    public int getMoveCount() {
+        return mMoveCount;
+    }
+
+    public boolean isStayBlack(int n) {
+        return mTokens[n] == STAY_BLACK_TOKEN;
+    }
+
+    public int getQ(int n) {
+        int lines = mSize * 2 - 1;
+        return (mTokens[n] - 1) % lines - mSize + 1;
+    }
+
+    public int getR(int n) {
+        int lines = mSize * 2 - 1;
+        return (mTokens[n] - 1) / lines - mSize + 1;
+    }
+
+    /**
+     * @return the n-th move as a cell index of the given board, or {@link Board#STAY_BLACK}
+     */
+    public int getMove(Board board, int n) {
+        return isStayBlack(n) ? Board.STAY_BLACK : board.index(getQ(n), getR(n));
+    }
+
+    /**
+     * @return 0 if the first player won, 1 if the second one did, or -1 if the game isn't over
+     */
+    public int getWinningPlayer() {
+        return mWinningPlayer;
+    }
+
+    public int getEncodedLength() {
+        int length = varintLength(mSize) + varintLength(mMoveCount) + 1;
+        for (int i = 0; i < mMoveCount; i++) {
+            length += varintLength(mTokens[i]);
+        }
+        return length;
+    }
+
+    public void encode(ByteBuffer buffer) {
+        putVarint(buffer, mSize);
+        putVarint(buffer, mMoveCount);
+        for (int i = 0; i < mMoveCount; i++) {
+            putVarint(buffer, mTokens[i]);
+        }
+        buffer.put((byte) (mWinningPlayer < 0 ? NO_RESULT : mWinningPlayer));
+    }
+
+    /**
+     * Decodes the record starting at an absolute position of the buffer, whose own position is left untouched.
+     *
+     * @return the position following the record
+     */
+    public int decode(ByteBuffer buffer, int position) {
+        mPosition = position;
+        mSize = getVarint(buffer);
+        int count = getVarint(buffer);
+        if (mSize < 1 || count < 0 || count > 3 * mSize * mSize) {
+            throw new IllegalArgumentException("Corrupted game record at " + position);
+        }
+        ensureCapacity(count);
+        for (mMoveCount = 0; mMoveCount < count; mMoveCount++) {
+            mTokens[mMoveCount] = getVarint(buffer);
+        }
+        int result = buffer.get(mPosition++) & 0xFF;
+        mWinningPlayer = result == NO_RESULT ? -1 : result;
+        return mPosition;
+    }
+
+    private void ensureCapacity(int count) {
+        if (mTokens.length < count) {
+            mTokens = new int[Math.max(count, mTokens.length * 2)];
+        }
+    }
+
+    private static int token(int size, int q, int r) {
+        return 1 + (r + size - 1) * (size * 2 - 1) + q + size - 1;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get(mPosition++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new BufferUnderflowException();
+    }
+}
@@ -0,0 +1,147 @@
+package com.viish.unlur.engine;
+
+/*
+BoardTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoardTest {
+    @Test
+    public void cellsHaveDistinctIndexes() {
+        for (int size = 2; size <= 8; size++) {
+            Board board = new Board(size);
+            assertEquals(3 * size * size - 3 * size + 1, board.getCellCount());
+            for (int n = 0; n < board.getCellCount(); n++) {
+                int index = board.getCell(n);
+                assertEquals(index, board.index(board.getQ(index), board.getR(index)));
+                assertTrue(board.isValid(board.getQ(index), board.getR(index)));
+                if (n > 0) assertTrue(index > board.getCell(n - 1));
+            }
+        }
+    }
+
+    @Test
+    public void undoRestoresThePosition() {
+        Random random = new Random(1);
+        for (int game = 0; game < 200; game++) {
+            Board board = new Board(2 + game % 5);
+            while (!board.isGameFinished()) {
+                board.play(RandomGames.randomMove(board, random));
+                assertSamePosition(RandomGames.replay(board, board.getMoveCount()), board);
+                if (random.nextInt(3) == 0) {
+                    board.undo();
+                    assertSamePosition(RandomGames.replay(board, board.getMoveCount()), board);
+                }
+            }
+            while (board.getMoveCount() > 0) {
+                board.undo();
+            }
+            assertSamePosition(new Board(board.getSize()), board);
+        }
+    }
+
+    @Test
+    public void copyKeepsTheHistory() {
+        Random random = new Random(2);
+        Board board = new Board(5);
+        RandomGames.play(board, random, 20);
+        Board copy = new Board(5);
+        copy.copyFrom(board);
+        assertSamePosition(board, copy);
+        while (copy.getMoveCount() > 0) {
+            copy.undo();
+            assertSamePosition(RandomGames.replay(board, copy.getMoveCount()), copy);
+        }
+    }
+
+    @Test
+    public void peekTellsWhatPlayingDoes() {
+        Random random = new Random(3);
+        for (int game = 0; game < 100; game++) {
+            Board board = new Board(2 + game % 4);
+            while (!board.isGameFinished()) {
+                if (board.isBlackChosen()) {
+                    for (int n = 0; n < board.getCellCount(); n++) {
+                        int index = board.getCell(n);
+                        if (!board.isLegal(index)) continue;
+                        EndGame peeked = board.peek(index, board.getColorToPlay());
+                        assertEquals(peeked, board.play(index));
+                        board.undo();
+                    }
+                }
+                board.play(RandomGames.randomMove(board, random));
+            }
+            assertTrue(board.getWinner() != Board.EMPTY);
+            assertTrue(board.getWinningPlayer() == 0 || board.getWinningPlayer() == 1);
+        }
+    }
+
+    @Test
+    public void stayingBlackIsLegalOnce() {
+        Board board = new Board(4);
+        assertTrue(board.canStayBlack());
+        assertTrue(board.isLegal(Board.STAY_BLACK));
+        board.play(Board.STAY_BLACK);
+        assertTrue(board.isBlackChosen());
+        assertFalse(board.canStayBlack());
+        assertFalse(board.isLegal(Board.STAY_BLACK));
+        assertEquals(Board.STAY_BLACK, board.undo());
+        assertFalse(board.isBlackChosen());
+    }
+
+    static void assertSamePosition(Board expected, Board actual) {
+        assertEquals(expected.getMoveCount(), actual.getMoveCount());
+        for (int i = 0; i < expected.getMoveCount(); i++) {
+            assertEquals(expected.getMove(i), actual.getMove(i));
+        }
+        assertEquals(expected.getHash(), actual.getHash());
+        assertEquals(expected.getCanonicalHash(), actual.getCanonicalHash());
+        assertEquals(expected.isBlackTurn(), actual.isBlackTurn());
+        assertEquals(expected.isBlackChosen(), actual.isBlackChosen());
+        assertEquals(expected.getEndGame(), actual.getEndGame());
+
+        for (int n = 0; n < expected.getCellCount(); n++) {
+            int index = expected.getCell(n);
+            assertEquals(expected.getColor(index), actual.getColor(index));
+            assertEquals(expected.isLegal(index), actual.isLegal(index));
+            if (expected.isEmpty(index)) continue;
+
+            assertEquals(expected.getGroupSides(index), actual.getGroupSides(index));
+            int size = 0;
+            int stone = index;
+            do {
+                assertEquals(actual.getGroup(index), actual.getGroup(stone));
+                stone = actual.getNextStone(stone);
+                size++;
+            } while (stone != index);
+            int expectedSize = 0;
+            for (int m = 0; m < expected.getCellCount(); m++) {
+                int other = expected.getCell(m);
+                boolean isSameGroup = !expected.isEmpty(other) && expected.getGroup(other) == expected.getGroup(index);
+                assertEquals(isSameGroup, !actual.isEmpty(other) && actual.getGroup(other) == actual.getGroup(index));
+                if (isSameGroup) expectedSize++;
+            }
+            assertEquals(expectedSize, size);
+        }
+    }
+}
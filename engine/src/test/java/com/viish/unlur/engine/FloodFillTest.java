@@ -0,0 +1,87 @@
+package com.viish.unlur.engine;
+
+/*
+FloodFillTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FloodFillTest {
+    @Test
+    public void groupsMatchTheUnionFind() {
+        Random random = new Random(5);
+        for (int game = 0; game < 300; game++) {
+            int size = 2 + game % 7;
+            Board board = new Board(size);
+            FloodFill floodFill = new FloodFill(size);
+            while (true) {
+                assertSameGroups(board, floodFill);
+                if (board.isGameFinished()) break;
+                board.play(RandomGames.randomMove(board, random));
+            }
+        }
+    }
+
+    @Test
+    public void groupsSpanningWordsMatchTheUnionFind() {
+        // From size 32 the stride reaches 64 and rows no longer share words
+        int[] sizes = {31, 32, 33, 50};
+        Random random = new Random(14);
+        for (int size : sizes) {
+            for (int game = 0; game < 2; game++) {
+                Board board = new Board(size);
+                FloodFill floodFill = new FloodFill(size);
+                int interval = board.getCellCount() / 8;
+                int checks = 0;
+                while (!board.isGameFinished()) {
+                    board.play(RandomGames.randomMove(board, random));
+                    if (board.getMoveCount() % interval == 0) {
+                        assertSameGroups(board, floodFill);
+                        checks++;
+                    }
+                }
+                assertSameGroups(board, floodFill);
+                assertTrue(checks > 0);
+            }
+        }
+    }
+
+    private static void assertSameGroups(Board board, FloodFill floodFill) {
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int index = board.getCell(n);
+            if (!board.isEmpty(index)) {
+                assertEquals(board.getGroupSides(index), floodFill.getGroupSides(board, index));
+            }
+        }
+        assertEquals(hasShape(board, Board.BLACK), floodFill.hasShape(board, Board.BLACK));
+        assertEquals(hasShape(board, Board.WHITE), floodFill.hasShape(board, Board.WHITE));
+    }
+
+    private static boolean hasShape(Board board, int color) {
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int index = board.getCell(n);
+            if (board.getColor(index) != color) continue;
+            int sides = board.getGroupSides(index);
+            if (color == Board.BLACK ? Board.isBlackShape(sides) : Board.isWhiteShape(sides)) return true;
+        }
+        return false;
+    }
+}
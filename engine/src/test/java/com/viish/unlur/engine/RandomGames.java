@@ -0,0 +1,57 @@
+package com.viish.unlur.engine;
+
+/*
+RandomGames.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import java.util.Random;
+
+/**
+ * Random legal moves for the tests, from seeded generators so that failures can be replayed.
+ */
+public final class RandomGames {
+    private RandomGames() {
+    }
+
+    /**
+     * @return a random legal move of the position, which must not be finished
+     */
+    public static int randomMove(Board board, Random random) {
+        int[] moves = new int[board.getCellCount() + 1];
+        int count = board.getLegalMoves(moves);
+        return moves[random.nextInt(count)];
+    }
+
+    /**
+     * Plays random moves until the game is over or the given number of moves were played.
+     */
+    public static void play(Board board, Random random, int maxMoves) {
+        for (int i = 0; i < maxMoves && !board.isGameFinished(); i++) {
+            board.play(randomMove(board, random));
+        }
+    }
+
+    /**
+     * @return a new board with the first moves of the given one
+     */
+    public static Board replay(Board board, int moveCount) {
+        Board replayed = new Board(board.getSize());
+        for (int i = 0; i < moveCount; i++) {
+            replayed.play(board.getMove(i));
+        }
+        return replayed;
+    }
+}
@@ -0,0 +1,135 @@
+package com.viish.unlur.engine;
+
+/*
+SymmetryTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SymmetryTest {
+    @Test
+    public void allTwelveTransformsAreKept() {
+        for (int size = 2; size <= 8; size++) {
+            Symmetry symmetry = new Board(size).getSymmetry();
+            assertEquals(12, symmetry.getCount());
+        }
+    }
+
+    @Test
+    public void transformsArePermutationsOfTheCells() {
+        for (int size = 2; size <= 8; size++) {
+            Board board = new Board(size);
+            Symmetry symmetry = board.getSymmetry();
+            for (int t = 0; t < symmetry.getCount(); t++) {
+                Set<Integer> images = new HashSet<>();
+                for (int n = 0; n < board.getCellCount(); n++) {
+                    int index = board.getCell(n);
+                    int image = symmetry.transform(t, index);
+                    assertTrue(board.isValid(board.getQ(image), board.getR(image)));
+                    assertEquals(board.getSides(index) != 0, board.getSides(image) != 0);
+                    assertEquals(index, symmetry.inverse(t, image));
+                    images.add(image);
+                }
+                assertEquals(board.getCellCount(), images.size());
+                assertEquals(Board.STAY_BLACK, symmetry.transform(t, Board.STAY_BLACK));
+            }
+            for (int n = 0; n < board.getCellCount(); n++) {
+                assertEquals(board.getCell(n), symmetry.transform(0, board.getCell(n)));
+            }
+        }
+    }
+
+    @Test
+    public void symmetricPositionsShareTheCanonicalHash() {
+        Random random = new Random(4);
+        for (int game = 0; game < 100; game++) {
+            Board board = new Board(2 + game % 6);
+            Symmetry symmetry = board.getSymmetry();
+            Board[] images = new Board[symmetry.getCount()];
+            for (int t = 0; t < images.length; t++) {
+                images[t] = new Board(board.getSize());
+                // Kept up to date or computed when asked for, the hashes must be the same
+                images[t].setSymmetricHashing(t % 2 == 1);
+            }
+            while (!board.isGameFinished()) {
+                int move = RandomGames.randomMove(board, random);
+                EndGame end = board.play(move);
+                for (int t = 0; t < images.length; t++) {
+                    assertEquals(end, images[t].play(symmetry.transform(t, move)));
+                    assertEquals(board.getCanonicalHash(), images[t].getCanonicalHash());
+                    assertEquals(board.isBlackTurn(), images[t].isBlackTurn());
+                }
+                assertEquals(board.getHash(), images[0].getHash());
+
+                // The canonical transform gives the position whose plain hash is the canonical one
+                int canonical = board.getCanonicalSymmetry();
+                assertEquals(board.getCanonicalHash(), images[canonical].getHash());
+            }
+        }
+    }
+
+    @Test
+    public void symmetricHashingCanChangeAnytime() {
+        Random random = new Random(18);
+        Board board = new Board(5);
+        Board tracked = new Board(5);
+        tracked.setSymmetricHashing(true);
+        Board copy = new Board(5);
+        while (!board.isGameFinished()) {
+            int move = RandomGames.randomMove(board, random);
+            board.play(move);
+            tracked.play(move);
+            assertEquals(board.getCanonicalHash(), tracked.getCanonicalHash());
+            assertEquals(board.getCanonicalSymmetry(), tracked.getCanonicalSymmetry());
+
+            copy.setSymmetricHashing(random.nextBoolean());
+            copy.copyFrom(random.nextBoolean() ? board : tracked);
+            assertEquals(board.getHash(), copy.getHash());
+            assertEquals(board.getCanonicalHash(), copy.getCanonicalHash());
+            copy.setSymmetricHashing(true);
+            if (!copy.isGameFinished()) {
+                copy.play(RandomGames.randomMove(copy, random));
+                copy.undo();
+            }
+            assertEquals(board.getCanonicalHash(), copy.getCanonicalHash());
+        }
+    }
+
+    @Test
+    public void differentPositionsHaveDifferentHashes() {
+        Board board = new Board(4);
+        board.play(Board.STAY_BLACK);
+        Set<Long> hashes = new HashSet<>();
+        Set<Long> canonicalHashes = new HashSet<>();
+        for (int n = 0; n < board.getCellCount(); n++) {
+            board.play(board.getCell(n));
+            hashes.add(board.getHash());
+            canonicalHashes.add(board.getCanonicalHash());
+            board.undo();
+        }
+        assertEquals(board.getCellCount(), hashes.size());
+        // The center, the first ring, the corners and middles of the second ring, the corners
+        // and other cells of the third one
+        assertEquals(6, canonicalHashes.size());
+    }
+}
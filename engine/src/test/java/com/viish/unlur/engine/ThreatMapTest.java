@@ -0,0 +1,75 @@
+package com.viish.unlur.engine;
+
+/*
+ThreatMapTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThreatMapTest {
+    @Test
+    public void followingMovesMatchesARecompute() {
+        Random random = new Random(6);
+        for (int game = 0; game < 200; game++) {
+            Board board = new Board(2 + game % 6);
+            ThreatMap threats = new ThreatMap();
+            threats.reset(board);
+            ThreatMap fresh = new ThreatMap();
+            while (!board.isGameFinished()) {
+                board.play(RandomGames.randomMove(board, random));
+                threats.played(board);
+                assertSameOutcomes(board, fresh, threats);
+                if (random.nextInt(3) == 0) {
+                    board.undo();
+                    threats.undone(board);
+                    assertSameOutcomes(board, fresh, threats);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void outcomesAreTheOnesOfPeek() {
+        Random random = new Random(7);
+        Board board = new Board(5);
+        ThreatMap threats = new ThreatMap();
+        threats.reset(board);
+        while (!board.isGameFinished()) {
+            for (int n = 0; n < board.getCellCount(); n++) {
+                int index = board.getCell(n);
+                for (int color = Board.BLACK; color <= Board.WHITE; color++) {
+                    EndGame expected = board.isEmpty(index) ? board.peek(index, color) : EndGame.NOPE;
+                    assertEquals(expected, threats.getOutcome(index, color));
+                }
+            }
+            board.play(RandomGames.randomMove(board, random));
+            threats.played(board);
+        }
+    }
+
+    private static void assertSameOutcomes(Board board, ThreatMap fresh, ThreatMap threats) {
+        fresh.reset(board);
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int index = board.getCell(n);
+            assertEquals(fresh.getOutcome(index, Board.BLACK), threats.getOutcome(index, Board.BLACK));
+            assertEquals(fresh.getOutcome(index, Board.WHITE), threats.getOutcome(index, Board.WHITE));
+        }
+    }
+}
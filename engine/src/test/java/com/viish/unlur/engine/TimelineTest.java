@@ -0,0 +1,76 @@
+package com.viish.unlur.engine;
+
+/*
+TimelineTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimelineTest {
+    @Test
+    public void seekingMatchesAReplay() {
+        Random random = new Random(8);
+        Board game = new Board(6);
+        RandomGames.play(game, random, Integer.MAX_VALUE);
+        Timeline timeline = new Timeline(6);
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            timeline.play(game.getMove(i));
+        }
+        assertEquals(game.getMoveCount(), timeline.getLength());
+
+        for (int i = 0; i < 200; i++) {
+            int ply = random.nextInt(timeline.getLength() + 1);
+            timeline.seek(ply);
+            assertEquals(ply, timeline.getPly());
+            BoardTest.assertSamePosition(RandomGames.replay(game, ply), timeline.getBoard());
+        }
+    }
+
+    @Test
+    public void playingKeepsTheNextMovesOnlyIfTheyFollow() {
+        Random random = new Random(9);
+        Board game = new Board(4);
+        RandomGames.play(game, random, 10);
+        Timeline timeline = new Timeline(4);
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            timeline.play(game.getMove(i));
+        }
+
+        timeline.seek(3);
+        assertTrue(timeline.canRedo());
+        timeline.play(game.getMove(3));
+        assertEquals(game.getMoveCount(), timeline.getLength());
+
+        int other = game.getMove(4);
+        while (other == game.getMove(4)) {
+            other = RandomGames.randomMove(timeline.getBoard(), random);
+        }
+        timeline.play(other);
+        assertEquals(5, timeline.getLength());
+        assertFalse(timeline.canRedo());
+
+        timeline.clear();
+        assertEquals(0, timeline.getLength());
+        assertFalse(timeline.canUndo());
+        BoardTest.assertSamePosition(new Board(4), timeline.getBoard());
+    }
+}
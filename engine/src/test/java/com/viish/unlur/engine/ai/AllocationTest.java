@@ -0,0 +1,212 @@
+package com.viish.unlur.engine.ai;
+
+/*
+AllocationTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.FloodFill;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the searches allocate nothing once warmed up, which would otherwise make the
+ * garbage collector pause the app while the AI thinks in the background. Each search runs a
+ * few times on the same positions, then the bytes allocated during more runs are counted, by
+ * the calling thread and by the search threads.
+ */
+public class AllocationTest {
+    private static final int SIZE = 5;
+    private static final int WARM_UP_RUNS = 20;
+    private static final int MEASURED_RUNS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Board sEmpty;
+    private static Board sOpening;
+    private static Board sBoard;
+    private static Random sRandom;
+    private static MonteCarloPlayer sThreadedMonteCarlo;
+
+    @BeforeClass
+    public static void setUp() {
+        sEmpty = new Board(SIZE);
+        sOpening = new Board(SIZE);
+        Random random = new Random(42);
+        int[] moves = new int[sOpening.getCellCount() + 1];
+        for (int i = 0; i < SIZE; i++) {
+            int count = sOpening.getLegalMoves(moves);
+            // Staying black is the first legal move, keep it for later
+            sOpening.play(moves[1 + random.nextInt(count - 1)]);
+        }
+        sBoard = new Board(SIZE);
+        sRandom = new Random(42);
+        sThreadedMonteCarlo = new MonteCarloPlayer(2, Long.MAX_VALUE / 2000000);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        sThreadedMonteCarlo.shutdown();
+    }
+
+    @Test
+    public void randomPlayout() {
+        final RandomPlayout playout = new RandomPlayout(sBoard.getCellCount());
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                sBoard.copyFrom(sEmpty);
+                playout.run(sBoard, sRandom);
+            }
+        });
+    }
+
+    @Test
+    public void patternPlayout() {
+        final PatternPlayout playout = new PatternPlayout(sBoard);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                sBoard.copyFrom(sOpening);
+                playout.run(sBoard, sRandom);
+            }
+        });
+    }
+
+    @Test
+    public void monteCarlo() {
+        final MonteCarloPlayer monteCarlo = new MonteCarloPlayer(1, Long.MAX_VALUE / 2000000);
+        monteCarlo.setMaxPlayouts(2000);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                // The opening doesn't follow the empty board, so each search starts a new tree
+                monteCarlo.setSeed(42);
+                monteCarlo.selectMove(sEmpty);
+                monteCarlo.selectMove(sOpening);
+            }
+        });
+    }
+
+    @Test
+    public void threadedMonteCarlo() {
+        final MonteCarloPlayer monteCarlo = sThreadedMonteCarlo;
+        monteCarlo.setMaxPlayouts(1000);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                monteCarlo.setSeed(42);
+                monteCarlo.ponder(sEmpty);
+                monteCarlo.selectMove(sOpening);
+            }
+        });
+    }
+
+    @Test
+    public void alphaBeta() {
+        final AlphaBetaSearch alphaBeta = new AlphaBetaSearch(new TranspositionTable(16), new DistanceEvaluator(), 20, 20);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                alphaBeta.selectMove(sOpening);
+            }
+        });
+    }
+
+    @Test
+    public void solver() {
+        final Solver solver = new Solver(new TranspositionTable(16));
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                solver.solve(sOpening, 100000);
+            }
+        });
+    }
+
+    @Test
+    public void floodFill() {
+        final FloodFill floodFill = new FloodFill(SIZE);
+        final Board played = new Board(SIZE);
+        new RandomPlayout(played.getCellCount()).run(played, new Random(42));
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                floodFill.hasShape(played, Board.BLACK);
+                floodFill.hasShape(played, Board.WHITE);
+            }
+        });
+    }
+
+    private static void assertNoAllocation(Runnable search) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            search.run();
+        }
+        long[] threads = getThreadIds();
+        long[] before = new long[threads.length];
+        long[] after = new long[threads.length];
+        // Reading the counters of other threads may allocate, which is measured without searching first
+        long overhead = measure(threads, before, after, new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertEquals(0, measure(threads, before, after, search) - overhead);
+    }
+
+    private static long measure(long[] threads, long[] before, long[] after, Runnable search) {
+        for (int i = 0; i < threads.length; i++) {
+            before[i] = THREADS.getThreadAllocatedBytes(threads[i]);
+        }
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            search.run();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            after[i] = THREADS.getThreadAllocatedBytes(threads[i]);
+        }
+        long bytes = 0;
+        for (int i = 0; i < threads.length; i++) {
+            bytes += after[i] - before[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the calling thread then the search threads
+     */
+    private static long[] getThreadIds() {
+        List<Long> ids = new ArrayList<>();
+        ids.add(Thread.currentThread().getId());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("Unlur-")) ids.add(thread.getId());
+        }
+        long[] threads = new long[ids.size()];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = ids.get(i);
+        }
+        return threads;
+    }
+}
@@ -0,0 +1,59 @@
+package com.viish.unlur.engine.ai;
+
+/*
+AlphaBetaSearchTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.RandomGames;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AlphaBetaSearchTest {
+    @Test
+    public void movesDontDependOnTheTable() {
+        Random random = new Random(15);
+        // A table of 16 entries loses most of what the search stores
+        AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(4), new DistanceEvaluator(), 20, 20);
+        for (int game = 0; game < 20; game++) {
+            Board board = new Board(3 + game % 3);
+            while (!board.isGameFinished()) {
+                int move = search.selectMove(board);
+                assertTrue(board.isLegal(move));
+                if (hasWinningMove(board)) {
+                    assertEquals(EndGame.VICTORY, board.play(move));
+                    board.undo();
+                }
+                board.play(RandomGames.randomMove(board, random));
+            }
+        }
+    }
+
+    private static boolean hasWinningMove(Board board) {
+        if (!board.isBlackChosen()) return false;
+        for (int n = 0; n < board.getCellCount(); n++) {
+            int index = board.getCell(n);
+            if (board.isLegal(index) && board.peek(index, board.getColorToPlay()) == EndGame.VICTORY) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+package com.viish.unlur.engine.ai;
+
+/*
+BookPlayerTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.RandomGames;
+import com.viish.unlur.engine.record.GameDatabase;
+import com.viish.unlur.engine.record.GameRecord;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BookPlayerTest {
+    private static final int FALLBACK_MOVE = -42;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void weakBookMovesAreLeftToTheOtherPlayer() throws Exception {
+        Random random = new Random(17);
+        File games = new File(mFolder.getRoot(), "games.bin");
+        try (GameDatabase.Writer writer = new GameDatabase.Writer(games)) {
+            for (int i = 0; i < 2000; i++) {
+                Board board = new Board(3);
+                RandomGames.play(board, random, Integer.MAX_VALUE);
+                writer.append(new GameRecord(board));
+            }
+        }
+        File file = new File(mFolder.getRoot(), "book.bin");
+        assertTrue(OpeningBook.build(new File[] {games}, 3, 4, 1, file) > 0);
+        OpeningBook book = OpeningBook.open(file);
+
+        BookPlayer player = new BookPlayer(book, new Player() {
+            @Override
+            public int selectMove(Board board) {
+                return FALLBACK_MOVE;
+            }
+
+            @Override
+            public void setCancelFlag(AtomicBoolean cancelled) {
+            }
+        });
+        int played = 0;
+        int left = 0;
+        for (int game = 0; game < 200; game++) {
+            Board board = new Board(3);
+            RandomGames.play(board, random, random.nextInt(4));
+            if (book.getMove(board) == TranspositionTable.NO_MOVE) continue;
+
+            boolean isStrong = book.getGames(board) >= BookPlayer.DEFAULT_MIN_GAMES
+                    && book.getLowerBound(board) >= BookPlayer.DEFAULT_MIN_LOWER_BOUND;
+            assertEquals(isStrong ? book.getMove(board) : FALLBACK_MOVE, player.selectMove(board));
+            if (isStrong) played++; else left++;
+        }
+        assertTrue(played > 0 && left > 0);
+
+        Board board = new Board(3);
+        player.setThresholds(0, 0);
+        assertEquals(book.getMove(board), player.selectMove(board));
+        player.setThresholds(book.getGames(board) + 1, 0);
+        assertEquals(FALLBACK_MOVE, player.selectMove(board));
+        player.setThresholds(0, book.getLowerBound(board) + 1);
+        assertEquals(FALLBACK_MOVE, player.selectMove(board));
+    }
+}
@@ -0,0 +1,93 @@
+package com.viish.unlur.engine.ai;
+
+/*
+DistanceEvaluatorTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.RandomGames;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistanceEvaluatorTest {
+    @Test
+    public void followingMovesMatchesARecompute() {
+        Random random = new Random(12);
+        for (int game = 0; game < 100; game++) {
+            Board board = new Board(2 + game % 6);
+            DistanceEvaluator evaluator = new DistanceEvaluator();
+            evaluator.reset(board);
+            DistanceEvaluator fresh = new DistanceEvaluator();
+            while (!board.isGameFinished()) {
+                int move = RandomGames.randomMove(board, random);
+                board.play(move);
+                evaluator.played(board, move);
+                assertSameDistances(board, fresh, evaluator);
+                if (random.nextInt(3) == 0) {
+                    board.undo();
+                    evaluator.undone(board, move);
+                    assertSameDistances(board, fresh, evaluator);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void evaluatorsCanChangeBoardSize() {
+        Random random = new Random(16);
+        DistanceEvaluator evaluator = new DistanceEvaluator();
+        DistanceEvaluator fresh = new DistanceEvaluator();
+        for (int game = 0; game < 20; game++) {
+            Board board = new Board(game % 2 == 0 ? 6 : 3);
+            evaluator.reset(board);
+            while (!board.isGameFinished()) {
+                int move = RandomGames.randomMove(board, random);
+                board.play(move);
+                evaluator.played(board, move);
+            }
+            assertSameDistances(board, new DistanceEvaluator(), evaluator);
+            assertSameDistances(board, fresh, evaluator);
+        }
+    }
+
+    @Test
+    public void emptyBoardNeeds() {
+        // White needs a line between opposite sides, black a three-way star from the center
+        Board board = new Board(4);
+        DistanceEvaluator evaluator = new DistanceEvaluator();
+        evaluator.reset(board);
+        assertEquals(7, evaluator.getNeed(Board.WHITE));
+        assertEquals(10, evaluator.getNeed(Board.BLACK));
+    }
+
+    private static void assertSameDistances(Board board, DistanceEvaluator fresh, DistanceEvaluator evaluator) {
+        fresh.reset(board);
+        for (int color = Board.BLACK; color <= Board.WHITE; color++) {
+            for (int side = 0; side < Board.SIDE_COUNT; side++) {
+                for (int n = 0; n < board.getCellCount(); n++) {
+                    int index = board.getCell(n);
+                    assertEquals(fresh.getDistance(color, side, index), evaluator.getDistance(color, side, index));
+                }
+            }
+            assertEquals(fresh.getNeed(color), evaluator.getNeed(color));
+        }
+        assertEquals(fresh.evaluate(board), evaluator.evaluate(board));
+    }
+}
@@ -0,0 +1,132 @@
+package com.viish.unlur.engine.ai;
+
+/*
+SolverTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.RandomGames;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SolverTest {
+    @Test
+    public void smallestBoardMatchesAFullSearch() {
+        Board board = new Board(2);
+        Solver solver = new Solver(new TranspositionTable(10));
+        assertSolved(board, solver, new HashMap<Long, Boolean>(), new HashSet<Long>());
+    }
+
+    @Test
+    public void positionsMatchAFullSearch() {
+        Random random = new Random(13);
+        // A small table so that entries get overwritten while solving
+        Solver solver = new Solver(new TranspositionTable(12));
+        Map<Long, Boolean> known = new HashMap<>();
+        for (int game = 0; game < 30; game++) {
+            Board board = new Board(3);
+            board.play(Board.STAY_BLACK);
+            RandomGames.play(board, random, 7);
+            if (board.isGameFinished()) continue;
+            int result = solver.solve(board, Long.MAX_VALUE);
+            assertEquals(isWon(board, known) ? Solver.WIN : Solver.LOSS, result);
+            if (result == Solver.WIN) {
+                assertWinningMove(board, solver.getBestMove(), known);
+            }
+        }
+    }
+
+    @Test
+    public void emptyBoardOfSize3IsWon() {
+        Solver solver = new Solver(new TranspositionTable(20));
+        Board board = new Board(3);
+        assertEquals(Solver.WIN, solver.solve(board, Long.MAX_VALUE));
+        assertTrue(board.isLegal(solver.getBestMove()));
+        assertEquals(0, board.getMoveCount());
+    }
+
+    @Test
+    public void limitsAndCancelsGiveUp() {
+        Solver solver = new Solver(new TranspositionTable(16));
+        Board board = new Board(4);
+        assertEquals(Solver.UNKNOWN, solver.solve(board, 1000));
+        assertTrue(solver.getNodes() <= 1001);
+
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        solver.setCancelFlag(cancelled);
+        assertEquals(Solver.UNKNOWN, solver.solve(new Board(3), Long.MAX_VALUE));
+        solver.setCancelFlag(null);
+    }
+
+    private static void assertSolved(Board board, Solver solver, Map<Long, Boolean> known, Set<Long> checked) {
+        if (board.isGameFinished()) return;
+
+        int result = solver.solve(board, Long.MAX_VALUE);
+        boolean isWon = isWon(board, known);
+        assertEquals(isWon ? Solver.WIN : Solver.LOSS, result);
+        if (isWon) {
+            assertWinningMove(board, solver.getBestMove(), known);
+        }
+
+        // Every position of the game, but the ones already checked
+        if (!checked.add(board.getHash())) return;
+        int[] moves = new int[board.getCellCount() + 1];
+        int count = board.getLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            board.play(moves[i]);
+            assertSolved(board, solver, known, checked);
+            board.undo();
+        }
+    }
+
+    private static void assertWinningMove(Board board, int move, Map<Long, Boolean> known) {
+        assertTrue(board.isLegal(move));
+        EndGame end = board.play(move);
+        boolean isWinning = end == EndGame.VICTORY || (end == EndGame.NOPE && !isWon(board, known));
+        board.undo();
+        assertTrue(isWinning);
+    }
+
+    /**
+     * Plain minimax over every legal move, without any of the solver's pruning.
+     */
+    private static boolean isWon(Board board, Map<Long, Boolean> known) {
+        Boolean isKnown = known.get(board.getHash());
+        if (isKnown != null) return isKnown;
+
+        boolean isWon = false;
+        int[] moves = new int[board.getCellCount() + 1];
+        int count = board.getLegalMoves(moves);
+        for (int i = 0; i < count && !isWon; i++) {
+            EndGame end = board.play(moves[i]);
+            isWon = end == EndGame.VICTORY || (end == EndGame.NOPE && !isWon(board, known));
+            board.undo();
+        }
+        known.put(board.getHash(), isWon);
+        return isWon;
+    }
+}
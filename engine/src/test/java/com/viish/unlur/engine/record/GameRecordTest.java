@@ -0,0 +1,97 @@
+package com.viish.unlur.engine.record;
+
+/*
+GameRecordTest.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.RandomGames;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameRecordTest {
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void encodingRoundTrips() {
+        Random random = new Random(10);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        Board[] games = new Board[100];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = new Board(2 + i % 8);
+            // Some games are left unfinished
+            RandomGames.play(games[i], random, i % 3 == 0 ? 5 : Integer.MAX_VALUE);
+            GameRecord record = new GameRecord(games[i]);
+            int start = buffer.position();
+            record.encode(buffer);
+            assertEquals(record.getEncodedLength(), buffer.position() - start);
+        }
+
+        GameRecord record = new GameRecord();
+        int position = 0;
+        for (Board game : games) {
+            position = record.decode(buffer, position);
+            assertGame(game, record);
+        }
+        assertEquals(buffer.position(), position);
+    }
+
+    @Test
+    public void databaseReadsTheAppendedGames() throws Exception {
+        Random random = new Random(11);
+        File file = new File(mFolder.getRoot(), "games.bin");
+        Board[] games = new Board[50];
+        try (GameDatabase.Writer writer = new GameDatabase.Writer(file)) {
+            for (int i = 0; i < games.length; i++) {
+                games[i] = new Board(3 + i % 4);
+                RandomGames.play(games[i], random, Integer.MAX_VALUE);
+                writer.append(new GameRecord(games[i]));
+            }
+        }
+
+        GameDatabase database = GameDatabase.open(file);
+        assertEquals(games.length, database.getGameCount());
+        GameRecord record = new GameRecord();
+        for (int i = games.length - 1; i >= 0; i--) {
+            database.read(i, record);
+            assertGame(games[i], record);
+        }
+    }
+
+    private static void assertGame(Board expected, GameRecord record) {
+        assertEquals(expected.getSize(), record.getSize());
+        assertEquals(expected.getMoveCount(), record.getMoveCount());
+        assertEquals(expected.getWinningPlayer(), record.getWinningPlayer());
+        for (int i = 0; i < expected.getMoveCount(); i++) {
+            int move = expected.getMove(i);
+            assertEquals(move == Board.STAY_BLACK, record.isStayBlack(i));
+            assertEquals(move, record.getMove(expected, i));
+        }
+        Board replayed = new Board(record.getSize());
+        record.replay(replayed);
+        assertEquals(expected.getHash(), replayed.getHash());
+        assertEquals(expected.getEndGame(), replayed.getEndGame());
+    }
+}
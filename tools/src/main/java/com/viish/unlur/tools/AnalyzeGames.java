@@ -0,0 +1,281 @@
+package com.viish.unlur.tools;
+
+/*
+AnalyzeGames.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.ai.Solver;
+import com.viish.unlur.engine.ai.TranspositionTable;
+import com.viish.unlur.engine.record.GameDatabase;
+import com.viish.unlur.engine.record.GameRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Solves every position of game files on every core and flags the blunders, the moves that
+ * turned a won position into a lost one, including the ones losing at once by completing a
+ * shape of the opponent. All the solvers share a single {@link TranspositionTable}, and the
+ * positions of a game are solved from the last one back so that each one reuses the results
+ * of the next. Games are decoded straight from the mapped files, see {@link GameDatabase}.
+ * <p>
+ * Usage: AnalyzeGames [-t threads] [-n nodes per position] [-o results file] &lt;game file&gt; [game file...]
+ * <p>
+ * The results file starts with "UNLA" and a version as ints, then has for each game its number
+ * across all the game files as an int, its move count as a short and a byte per move. The two low
+ * bits of that byte are the {@link Solver} result of the position before the move, then come
+ * the BLUNDER and SELF_DEFEAT flags. Games are written in the order they are done.
+ */
+public class AnalyzeGames {
+    public static final int MAGIC = 0x554E4C41; // "UNLA"
+    public static final int VERSION = 1;
+    public static final int BLUNDER = 1 << 2;
+    public static final int SELF_DEFEAT = 1 << 3;
+
+    private static final int MAX_SIZE = 50;
+    // Games analyzed by a task before it stops splitting
+    private static final int GAMES_PER_TASK = 8;
+    private static final int TABLE_LOG2 = 22;
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long nodes = 10000;
+        File output = null;
+        int first = 0;
+        try {
+            for (; first < args.length && args[first].startsWith("-"); first++) {
+                if (args[first].equals("-t")) {
+                    threads = Integer.parseInt(args[++first]);
+                } else if (args[first].equals("-n")) {
+                    nodes = Long.parseLong(args[++first]);
+                } else if (args[first].equals("-o")) {
+                    output = new File(args[++first]);
+                } else {
+                    usage("Unknown option " + args[first]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            usage(e.getMessage());
+        }
+        if (first >= args.length) usage("No game file");
+        if (threads < 1 || nodes < 1) usage("Threads and nodes must be positive");
+
+        TranspositionTable table = new TranspositionTable(TABLE_LOG2);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Stats total = new Stats();
+        long start = System.nanoTime();
+        try (Results results = output != null ? new Results(output) : null) {
+            int base = 0;
+            for (int i = first; i < args.length; i++) {
+                GameDatabase database = GameDatabase.open(new File(args[i]));
+                total.add(pool.invoke(new Analysis(database, base, 0, database.getGameCount(), table, nodes, results)));
+                base += database.getGameCount();
+            }
+        }
+        pool.shutdown();
+        report(total, threads, System.nanoTime() - start);
+    }
+
+    private static void usage(String error) {
+        if (error != null) System.err.println(error);
+        System.err.println("Usage: AnalyzeGames [-t threads] [-n nodes per position] [-o results file] <game file> [game file...]");
+        System.exit(1);
+    }
+
+    private static void report(Stats total, int threads, long elapsedNanos) {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            if (total.mGames[size] == 0) continue;
+            long positions = total.mPositions[size];
+            System.out.println(String.format(Locale.US,
+                    "size %2d  %d games, %d positions, %.1f%% solved, %d blunders in %d games, %d self-defeats, %.0f nodes per position",
+                    size, total.mGames[size], positions, 100.0 * total.mSolved[size] / Math.max(1, positions),
+                    total.mBlunders[size], total.mGamesWithBlunders[size], total.mSelfDefeats[size],
+                    (double) total.mNodes[size] / Math.max(1, positions)));
+        }
+        if (total.mSkipped > 0) {
+            System.out.println(total.mSkipped + " games larger than size " + MAX_SIZE + " skipped");
+        }
+        long positions = 0;
+        for (long count : total.mPositions) {
+            positions += count;
+        }
+        System.out.println(String.format(Locale.US, "%d positions in %.1f s on %d threads, %.0f positions/s",
+                positions, elapsedNanos / 1e9, threads, positions * 1e9 / elapsedNanos));
+    }
+
+    private static class Stats {
+        private final long[] mGames = new long[MAX_SIZE + 1];
+        private final long[] mPositions = new long[MAX_SIZE + 1];
+        private final long[] mSolved = new long[MAX_SIZE + 1];
+        private final long[] mBlunders = new long[MAX_SIZE + 1];
+        private final long[] mGamesWithBlunders = new long[MAX_SIZE + 1];
+        private final long[] mSelfDefeats = new long[MAX_SIZE + 1];
+        private final long[] mNodes = new long[MAX_SIZE + 1];
+        // Games of a size the app doesn't offer
+        private long mSkipped;
+
+        private void add(Stats other) {
+            for (int i = 0; i <= MAX_SIZE; i++) {
+                mGames[i] += other.mGames[i];
+                mPositions[i] += other.mPositions[i];
+                mSolved[i] += other.mSolved[i];
+                mBlunders[i] += other.mBlunders[i];
+                mGamesWithBlunders[i] += other.mGamesWithBlunders[i];
+                mSelfDefeats[i] += other.mSelfDefeats[i];
+                mNodes[i] += other.mNodes[i];
+            }
+            mSkipped += other.mSkipped;
+        }
+    }
+
+    /**
+     * Writes the analysis of games to the results file, from any thread.
+     */
+    private static class Results implements Closeable {
+        private final DataOutputStream mOutput;
+
+        Results(File file) throws IOException {
+            mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            mOutput.writeInt(MAGIC);
+            mOutput.writeInt(VERSION);
+        }
+
+        synchronized void write(int game, byte[] moves, int count) throws IOException {
+            mOutput.writeInt(game);
+            mOutput.writeShort(count);
+            mOutput.write(moves, 0, count);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            mOutput.close();
+        }
+    }
+
+    /**
+     * Analyzes the games [from, to) of a file, splitting the range until it is small enough.
+     */
+    private static class Analysis extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final GameDatabase mDatabase;
+        private final int mBase;
+        private final int mFrom, mTo;
+        private final TranspositionTable mTable;
+        private final long mNodeLimit;
+        private final Results mResults;
+
+        Analysis(GameDatabase database, int base, int from, int to, TranspositionTable table, long nodeLimit, Results results) {
+            mDatabase = database;
+            mBase = base;
+            mFrom = from;
+            mTo = to;
+            mTable = table;
+            mNodeLimit = nodeLimit;
+            mResults = results;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (mTo - mFrom > GAMES_PER_TASK) {
+                int middle = (mFrom + mTo) >>> 1;
+                Analysis right = new Analysis(mDatabase, mBase, middle, mTo, mTable, mNodeLimit, mResults);
+                right.fork();
+                Stats stats = new Analysis(mDatabase, mBase, mFrom, middle, mTable, mNodeLimit, mResults).compute();
+                stats.add(right.join());
+                return stats;
+            }
+
+            Stats stats = new Stats();
+            Solver solver = new Solver(mTable);
+            GameRecord record = new GameRecord();
+            Board board = null;
+            byte[] outcomes = new byte[0];
+            byte[] moves = new byte[0];
+            for (int game = mFrom; game < mTo; game++) {
+                mDatabase.read(game, record);
+                int size = record.getSize();
+                int count = record.getMoveCount();
+                if (size > MAX_SIZE) {
+                    stats.mSkipped++;
+                    continue;
+                }
+                if (board == null || board.getSize() != size) {
+                    board = new Board(size);
+                }
+                if (moves.length < count + 1) {
+                    outcomes = new byte[count + 1];
+                    moves = new byte[count + 1];
+                }
+
+                board.reset();
+                for (int i = 0; i < count; i++) {
+                    outcomes[i] = (byte) board.play(record.getMove(board, i)).ordinal();
+                }
+
+                // From the end so that the table already knows the positions that follow
+                int blunders = 0;
+                int next = Solver.UNKNOWN;
+                for (int i = count - 1; i >= 0; i--) {
+                    board.undo();
+                    int result = solver.solve(board, mNodeLimit);
+                    stats.mNodes[size] += solver.getNodes();
+                    if (result != Solver.UNKNOWN) stats.mSolved[size]++;
+
+                    EndGame outcome = EndGame.values()[outcomes[i]];
+                    int after = outcome == EndGame.VICTORY ? Solver.WIN
+                            : outcome == EndGame.DEFEAT ? Solver.LOSS
+                            : next == Solver.WIN ? Solver.LOSS
+                            : next == Solver.LOSS ? Solver.WIN : Solver.UNKNOWN;
+                    int flags = result;
+                    if (result == Solver.WIN && after == Solver.LOSS) {
+                        flags |= BLUNDER;
+                        blunders++;
+                    }
+                    if (outcome == EndGame.DEFEAT) {
+                        flags |= SELF_DEFEAT;
+                        stats.mSelfDefeats[size]++;
+                    }
+                    moves[i] = (byte) flags;
+                    next = result;
+                }
+
+                stats.mGames[size]++;
+                stats.mPositions[size] += count;
+                stats.mBlunders[size] += blunders;
+                if (blunders > 0) stats.mGamesWithBlunders[size]++;
+                if (mResults != null) {
+                    try {
+                        mResults.write(mBase + game, moves, count);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            return stats;
+        }
+    }
+}
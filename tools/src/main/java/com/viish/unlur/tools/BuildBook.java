@@ -0,0 +1,49 @@
+package com.viish.unlur.tools;
+
+/*
+BuildBook.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.ai.OpeningBook;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Builds the opening book of a board size from game files, such as the ones written by the
+ * app or by self-play with {@link Tournament} -o.
+ * <p>
+ * Usage: BuildBook &lt;size&gt; &lt;max plies&gt; &lt;min games&gt; &lt;output file&gt; &lt;game file&gt; [game file...]
+ */
+public class BuildBook {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: BuildBook <size> <max plies> <min games> <output file> <game file> [game file...]");
+            System.exit(1);
+        }
+        int size = Integer.parseInt(args[0]);
+        int maxPlies = Integer.parseInt(args[1]);
+        int minGames = Integer.parseInt(args[2]);
+        File[] games = new File[args.length - 4];
+        for (int i = 4; i < args.length; i++) {
+            games[i - 4] = new File(args[i]);
+        }
+
+        long start = System.currentTimeMillis();
+        int count = OpeningBook.build(games, size, maxPlies, minGames, new File(args[3]));
+        System.out.println(count + " positions written to " + args[3] + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
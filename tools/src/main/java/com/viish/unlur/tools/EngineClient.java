@@ -0,0 +1,259 @@
+package com.viish.unlur.tools;
+
+/*
+EngineClient.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs an {@link EngineServer} in its own process and talks to it, sending commands in batches.
+ * The main method referees games between two servers, checking every move and the final result
+ * against its own {@link Board}, which tests the server from end to end.
+ * <p>
+ * Usage: EngineClient [-g games] [-s size] &lt;player&gt; &lt;player&gt;, players given as for {@link Tournament}.
+ */
+public class EngineClient implements AutoCloseable {
+    private final Process mProcess;
+    private final BufferedReader mInput;
+    private final Writer mOutput;
+    private int mNextId = 1;
+
+    public static class Response {
+        private final boolean mIsSuccess;
+        private final String mText;
+
+        Response(boolean success, String text) {
+            mIsSuccess = success;
+            mText = text;
+        }
+
+        public boolean isSuccess() {
+            return mIsSuccess;
+        }
+
+        public String getText() {
+            return mText;
+        }
+
+        @Override
+        public String toString() {
+            return (mIsSuccess ? "= " : "? ") + mText;
+        }
+    }
+
+    /**
+     * Starts a server with the same JVM and class path as this one.
+     */
+    public EngineClient(String player) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                EngineServer.class.getName(), player);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        mProcess = builder.start();
+        mInput = new BufferedReader(new InputStreamReader(mProcess.getInputStream(), StandardCharsets.UTF_8));
+        mOutput = new BufferedWriter(new OutputStreamWriter(mProcess.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends all the commands in a single write and reads their responses meanwhile, so that a
+     * batch of any size can't fill both pipes and leave each side waiting for the other.
+     *
+     * @return the responses, in the order of the commands
+     */
+    public List<Response> send(final String... commands) throws IOException {
+        final int first = mNextId;
+        mNextId += commands.length;
+        if (commands.length == 1) {
+            // The server reads the whole line before answering, nothing can block
+            mOutput.write(first + " " + commands[0] + "\n");
+            mOutput.flush();
+            return Collections.singletonList(read(first));
+        }
+
+        final IOException[] writeError = new IOException[1];
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int n = 0; n < commands.length; n++) {
+                        mOutput.write((first + n) + " " + commands[n] + "\n");
+                    }
+                    mOutput.flush();
+                } catch (IOException e) {
+                    writeError[0] = e;
+                }
+            }
+        }, "EngineClient-writer");
+        writer.start();
+
+        List<Response> responses = new ArrayList<>(commands.length);
+        try {
+            for (int n = 0; n < commands.length; n++) {
+                responses.add(read(first + n));
+            }
+        } finally {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (writeError[0] != null) throw writeError[0];
+        return responses;
+    }
+
+    /**
+     * Sends a command and waits for its response.
+     *
+     * @return the result of the command
+     * @throws IOException if the server answered with an error
+     */
+    public String call(String command) throws IOException {
+        Response response = send(command).get(0);
+        if (!response.isSuccess()) {
+            throw new IOException(command + ": " + response.getText());
+        }
+        return response.getText();
+    }
+
+    private Response read(int id) throws IOException {
+        String line = mInput.readLine();
+        if (line == null) {
+            throw new IOException("Server closed the connection");
+        }
+        int space = line.indexOf(' ');
+        String header = space < 0 ? line : line.substring(0, space);
+        if (header.isEmpty() || (header.charAt(0) != '=' && header.charAt(0) != '?')
+                || !header.substring(1).equals(Integer.toString(id))) {
+            throw new IOException("Unexpected response " + line + " for command " + id);
+        }
+
+        StringBuilder text = new StringBuilder(space < 0 ? "" : line.substring(space + 1));
+        while ((line = mInput.readLine()) != null && !line.isEmpty()) {
+            text.append('\n').append(line);
+        }
+        return new Response(header.charAt(0) == '=', text.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            send("quit");
+        } finally {
+            mOutput.close();
+            try {
+                mProcess.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                mProcess.destroy();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = 10;
+        int size = 5;
+        List<String> specs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-g")) {
+                games = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-s")) {
+                size = Integer.parseInt(args[++i]);
+            } else {
+                specs.add(args[i]);
+            }
+        }
+        if (specs.size() != 2) {
+            System.err.println("Usage: EngineClient [-g games] [-s size] <player> <player>");
+            System.exit(1);
+        }
+
+        try (EngineClient first = new EngineClient(specs.get(0));
+             EngineClient second = new EngineClient(specs.get(1))) {
+            EngineClient[] clients = {first, second};
+            int[] wins = new int[2];
+            for (int game = 0; game < games; game++) {
+                // Each player moves first in every other game
+                int firstPlayer = game & 1;
+                int winner = referee(size, clients[firstPlayer], clients[1 - firstPlayer]);
+                wins[winner == 0 ? firstPlayer : 1 - firstPlayer]++;
+            }
+            System.out.println(specs.get(0) + " " + wins[0] + " - " + wins[1] + " " + specs.get(1));
+        }
+    }
+
+    /**
+     * Plays a game, asking each server for its moves and telling the other one about them.
+     *
+     * @return the winning player, 0 for the one who moved first
+     * @throws IOException if a server broke the rules or disagrees with the referee
+     */
+    private static int referee(int size, EngineClient first, EngineClient second) throws IOException {
+        Board board = new Board(size);
+        EngineClient[] clients = {first, second};
+        for (EngineClient client : clients) {
+            for (Response response : client.send("boardsize " + size, "clear_board")) {
+                if (!response.isSuccess()) throw new IOException("Can't start a game: " + response.getText());
+            }
+        }
+
+        while (!board.isGameFinished()) {
+            EngineClient mover = clients[board.getPlayer()];
+            String vertex = mover.call("genmove");
+            int move = parseMove(board, vertex);
+            if (!board.isLegal(move)) {
+                throw new IOException("Illegal move " + vertex + " at ply " + board.getMoveCount());
+            }
+            board.play(move);
+            clients[board.getPlayer()].call("play " + vertex);
+        }
+
+        String expected = board.getWinner() == Board.BLACK ? "B+" : "W+";
+        for (EngineClient client : clients) {
+            String result = client.call("final_result");
+            if (!result.equals(expected)) {
+                throw new IOException("Result " + result + " instead of " + expected);
+            }
+        }
+        return board.getWinningPlayer();
+    }
+
+    private static int parseMove(Board board, String vertex) throws IOException {
+        if (vertex.equals("stay")) return Board.STAY_BLACK;
+        String[] coordinates = vertex.split(",");
+        try {
+            int q = Integer.parseInt(coordinates[0]);
+            int r = Integer.parseInt(coordinates[1]);
+            if (board.isValid(q, r)) return board.index(q, r);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Reported below
+        }
+        throw new IOException("Invalid move " + vertex);
+    }
+}
@@ -0,0 +1,294 @@
+package com.viish.unlur.tools;
+
+/*
+EngineServer.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.EndGame;
+import com.viish.unlur.engine.ThreatMap;
+import com.viish.unlur.engine.Timeline;
+import com.viish.unlur.engine.ai.AlphaBetaSearch;
+import com.viish.unlur.engine.ai.MonteCarloPlayer;
+import com.viish.unlur.engine.ai.Player;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays Unlur over a line protocol modelled on GTP, so that engines can run as separate
+ * processes driven by scripts or other tools. The rules are those of the engine {@link Board},
+ * the same as in the app.
+ * <p>
+ * Each command is an optional number, a name and arguments. Several commands may share a line
+ * separated by ';'. Each gets a response made of '=' on success or '?' on error, the number of
+ * the command if it had one, the result, and an empty line. Commands may be sent without
+ * waiting for the responses, which are only flushed once there is no more input waiting, so a
+ * batch costs a single write whatever its size.
+ * <p>
+ * Cells are given in axial coordinates as q,r with 0,0 in the center, and "stay" stands for
+ * staying black.
+ * <p>
+ * Usage: EngineServer [player], the player being given as for {@link Tournament}, mcts:1000 by default.
+ */
+public class EngineServer {
+    private static final List<String> COMMANDS = Arrays.asList("protocol_version", "name", "version",
+            "known_command", "list_commands", "quit", "boardsize", "clear_board", "play", "stay_black", "undo",
+            "genmove", "analyze", "final_result", "to_move", "showboard", "engine");
+    private static final int MAX_SIZE = 50;
+    private static final String STAY_BLACK = "stay";
+
+    private final BufferedReader mInput;
+    private final Writer mOutput;
+    private Player mPlayer;
+    private Timeline mTimeline;
+    private Board mBoard;
+    private ThreatMap mThreats;
+    private boolean mIsQuitting;
+
+    public EngineServer(Reader input, Writer output, Player player) {
+        mInput = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        mOutput = output;
+        mPlayer = player;
+        setSize(5);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Player player = Tournament.createPlayer(args.length > 0 ? args[0] : "mcts:1000");
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        new EngineServer(input, output, player).run();
+        System.exit(0);
+    }
+
+    /**
+     * Answers commands until quit or the end of the input.
+     */
+    public void run() throws IOException {
+        String line;
+        while (!mIsQuitting && (line = mInput.readLine()) != null) {
+            for (String command : line.split(";")) {
+                if (!command.trim().isEmpty() && !command.trim().startsWith("#")) {
+                    respond(command.trim());
+                }
+            }
+            // Answers pile up while the client keeps sending
+            if (mIsQuitting || !mInput.ready()) {
+                mOutput.flush();
+            }
+        }
+        mOutput.flush();
+    }
+
+    private void respond(String command) throws IOException {
+        String[] words = command.split("\\s+");
+        String id = "";
+        int first = 0;
+        if (words[0].matches("\\d+")) {
+            id = words[0];
+            first = 1;
+        }
+        if (first >= words.length) {
+            mOutput.write("?" + id + " missing command\n\n");
+            return;
+        }
+
+        String name = words[first].toLowerCase(Locale.US);
+        String[] args = Arrays.copyOfRange(words, first + 1, words.length);
+        try {
+            mOutput.write("=" + id + " " + execute(name, args) + "\n\n");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            mOutput.write("?" + id + " " + e.getMessage() + "\n\n");
+        }
+    }
+
+    /**
+     * @return the result of the command
+     * @throws IllegalArgumentException if it can't be done
+     */
+    String execute(String name, String[] args) {
+        switch (name) {
+            case "protocol_version":
+                return "2";
+            case "name":
+                return "Unlur";
+            case "version":
+                return "1.0";
+            case "known_command":
+                return Boolean.toString(args.length > 0 && COMMANDS.contains(args[0]));
+            case "list_commands":
+                return String.join("\n", COMMANDS);
+            case "quit":
+                mIsQuitting = true;
+                return "";
+            case "boardsize":
+                setSize(parseInt(getArgument(args, 0)));
+                return "";
+            case "clear_board":
+                setSize(mBoard.getSize());
+                return "";
+            case "play":
+                play(parseMove(getArgument(args, 0)));
+                return "";
+            case "stay_black":
+                play(Board.STAY_BLACK);
+                return "";
+            case "undo":
+                if (!mTimeline.canUndo()) throw new IllegalArgumentException("cannot undo");
+                mTimeline.undo();
+                mThreats.undone(mBoard);
+                return "";
+            case "genmove": {
+                checkNotFinished();
+                int move = mPlayer.selectMove(mBoard);
+                play(move);
+                return formatMove(move);
+            }
+            case "analyze":
+                checkNotFinished();
+                return analyze();
+            case "final_result":
+                if (!mBoard.isGameFinished()) throw new IllegalArgumentException("game is not finished");
+                return mBoard.getWinner() == Board.BLACK ? "B+" : "W+";
+            case "to_move":
+                return mBoard.getColorToPlay() == Board.BLACK ? "black" : "white";
+            case "showboard":
+                return "\n" + formatBoard();
+            case "engine":
+                mPlayer = Tournament.createPlayer(getArgument(args, 0));
+                return "";
+            default:
+                throw new IllegalArgumentException("unknown command");
+        }
+    }
+
+    private void setSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("unacceptable size");
+        }
+        if (mTimeline == null || mBoard.getSize() != size) {
+            mTimeline = new Timeline(size);
+            mBoard = mTimeline.getBoard();
+            mThreats = new ThreatMap();
+        } else {
+            mTimeline.clear();
+        }
+        mThreats.reset(mBoard);
+    }
+
+    private void play(int move) {
+        checkNotFinished();
+        if (!mBoard.isLegal(move)) {
+            throw new IllegalArgumentException("illegal move");
+        }
+        mTimeline.play(move);
+        mThreats.played(mBoard);
+    }
+
+    private void checkNotFinished() {
+        if (mBoard.isGameFinished()) {
+            throw new IllegalArgumentException("game is over");
+        }
+    }
+
+    /**
+     * @return the move the player would choose, the cells where the player to move would win
+     * and lose at once, and the figures of the search when there are some
+     */
+    private String analyze() {
+        int move = mPlayer.selectMove(mBoard);
+        StringBuilder wins = new StringBuilder();
+        StringBuilder losses = new StringBuilder();
+        int color = mBoard.getColorToPlay();
+        for (int n = 0; n < mBoard.getCellCount(); n++) {
+            int cell = mBoard.getCell(n);
+            if (!mBoard.isLegal(cell)) continue;
+            EndGame end = mThreats.getOutcome(cell, color);
+            if (end == EndGame.VICTORY) {
+                wins.append(' ').append(formatMove(cell));
+            } else if (end == EndGame.DEFEAT) {
+                losses.append(' ').append(formatMove(cell));
+            }
+        }
+
+        StringBuilder result = new StringBuilder("move ").append(formatMove(move));
+        result.append(" win").append(wins).append(" lose").append(losses);
+        if (mPlayer instanceof MonteCarloPlayer) {
+            result.append(" stats ").append(((MonteCarloPlayer) mPlayer).getLastStats());
+        } else if (mPlayer instanceof AlphaBetaSearch) {
+            result.append(" stats ").append(((AlphaBetaSearch) mPlayer).getLastStats());
+        }
+        return result.toString();
+    }
+
+    private int parseMove(String text) {
+        if (text.equalsIgnoreCase(STAY_BLACK)) return Board.STAY_BLACK;
+        int comma = text.indexOf(',');
+        if (comma < 0) throw new IllegalArgumentException("invalid coordinates");
+        int q = parseInt(text.substring(0, comma));
+        int r = parseInt(text.substring(comma + 1));
+        if (!mBoard.isValid(q, r)) throw new IllegalArgumentException("invalid coordinates");
+        return mBoard.index(q, r);
+    }
+
+    private String formatMove(int move) {
+        if (move == Board.STAY_BLACK) return STAY_BLACK;
+        return mBoard.getQ(move) + "," + mBoard.getR(move);
+    }
+
+    /**
+     * @return the rows of the board from the top, with X for black, O for white and . for empty cells
+     */
+    private String formatBoard() {
+        StringBuilder text = new StringBuilder();
+        int max = mBoard.getSize() - 1;
+        for (int r = -max; r <= max; r++) {
+            for (int i = 0; i < Math.abs(r); i++) {
+                text.append(' ');
+            }
+            for (int q = -max; q <= max; q++) {
+                if (!mBoard.isValid(q, r)) continue;
+                int color = mBoard.getColor(mBoard.index(q, r));
+                text.append(color == Board.BLACK ? 'X' : color == Board.WHITE ? 'O' : '.').append(' ');
+            }
+            text.setLength(text.length() - 1);
+            text.append('\n');
+        }
+        return text.substring(0, text.length() - 1);
+    }
+
+    private static String getArgument(String[] args, int n) {
+        if (n >= args.length) throw new IllegalArgumentException("missing argument");
+        return args[n];
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number " + text);
+        }
+    }
+}
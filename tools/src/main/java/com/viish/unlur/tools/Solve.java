@@ -0,0 +1,57 @@
+package com.viish.unlur.tools;
+
+/*
+Solve.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.ai.SolutionTable;
+import com.viish.unlur.engine.ai.Solver;
+import com.viish.unlur.engine.ai.TranspositionTable;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Solves the empty board of a given size and writes its solution table.
+ * <p>
+ * Usage: Solve &lt;size&gt; &lt;output file&gt; [log2 of the transposition table entries]
+ */
+public class Solve {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Solve <size> <output file> [log2 table entries]");
+            System.exit(1);
+        }
+        int size = Integer.parseInt(args[0]);
+        int log2Entries = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+
+        Board board = new Board(size);
+        Solver solver = new Solver(new TranspositionTable(log2Entries));
+
+        long start = System.currentTimeMillis();
+        int result = solver.solve(board, Long.MAX_VALUE);
+        System.out.println("Size " + size + ": first player " + (result == Solver.WIN ? "wins" : "loses")
+                + " (" + solver.getNodes() + " nodes, " + (System.currentTimeMillis() - start) + " ms)");
+
+        SolutionTable table = SolutionTable.build(board, solver, Long.MAX_VALUE);
+        try (OutputStream output = new FileOutputStream(args[1])) {
+            table.write(output);
+        }
+        System.out.println(table.getPositionCount() + " positions written to " + args[1]);
+    }
+}
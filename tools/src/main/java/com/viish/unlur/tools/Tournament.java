@@ -0,0 +1,307 @@
+package com.viish.unlur.tools;
+
+/*
+Tournament.java
+Copyright (C) 2019 Sylvain Berfini, Grenoble, France
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>
+*/
+
+import com.viish.unlur.engine.Board;
+import com.viish.unlur.engine.ai.AlphaBetaSearch;
+import com.viish.unlur.engine.ai.BookPlayer;
+import com.viish.unlur.engine.ai.DistanceEvaluator;
+import com.viish.unlur.engine.ai.MonteCarloPlayer;
+import com.viish.unlur.engine.ai.OpeningBook;
+import com.viish.unlur.engine.ai.Player;
+import com.viish.unlur.engine.ai.Solver;
+import com.viish.unlur.engine.ai.SolverPlayer;
+import com.viish.unlur.engine.ai.ThreatEvaluator;
+import com.viish.unlur.engine.ai.TranspositionTable;
+import com.viish.unlur.engine.record.GameDatabase;
+import com.viish.unlur.engine.record.GameRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays games between engine configurations on every core and reports their relative strength.
+ * Every pair of players meets on every requested size, each player moving first in half of the
+ * games. Only the engine {@link Board} is used, so the rules are exactly those of the app.
+ * <p>
+ * Usage: Tournament [-g games] [-s sizes] [-t threads] [-o game file] &lt;player&gt; &lt;player&gt; [player...]
+ * <p>
+ * Sizes are a list such as 3,5 or a range such as 3-6, between 1 and 10 like the menu.
+ * Players are random, mcts:&lt;ms per move&gt;, uct:&lt;playouts per move&gt;, ab:&lt;ms per move&gt; or solver:&lt;nodes&gt;,
+ * mctsr and uctr using random playouts and abt the threat evaluator, optionally followed by
+ * @&lt;book file&gt; to play from an {@link OpeningBook} first.
+ * Games are appended to the game file if one is given, see {@link GameDatabase}.
+ */
+public class Tournament {
+    private static final int MIN_SIZE = 1;
+    private static final int MAX_SIZE = 10;
+    // Games played by a task before it stops splitting
+    private static final int GAMES_PER_TASK = 4;
+    private static final int SOLVER_TABLE_LOG2 = 16;
+    private static final int SEARCH_TABLE_LOG2 = 18;
+    // z for a 95% confidence interval
+    private static final double Z = 1.96;
+
+    public static void main(String[] args) throws IOException {
+        int games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Integer> sizes = new ArrayList<>();
+        List<String> specs = new ArrayList<>();
+        File output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-g")) {
+                    games = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-s")) {
+                    sizes = parseSizes(args[++i]);
+                } else if (args[i].equals("-t")) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-o")) {
+                    output = new File(args[++i]);
+                } else {
+                    createPlayer(args[i]);
+                    specs.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            usage(e.getMessage());
+        }
+        if (specs.size() < 2) usage("At least two players are needed");
+        if (games < 1 || threads < 1) usage("Games and threads must be positive");
+        if (sizes.isEmpty()) sizes.add(3);
+
+        GameDatabase.Writer writer = output != null ? new GameDatabase.Writer(output) : null;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        System.out.println(String.format(Locale.US, "%d games per pairing and size on %d threads", games, threads));
+        for (int size : sizes) {
+            for (int a = 0; a < specs.size(); a++) {
+                for (int b = a + 1; b < specs.size(); b++) {
+                    long start = System.nanoTime();
+                    Result result = pool.invoke(new Match(specs.get(a), specs.get(b), size, 0, games, writer));
+                    report(specs.get(a), specs.get(b), size, result, System.nanoTime() - start);
+                }
+            }
+        }
+        pool.shutdown();
+        if (writer != null) writer.close();
+    }
+
+    private static void usage(String error) {
+        if (error != null) System.err.println(error);
+        System.err.println("Usage: Tournament [-g games] [-s sizes] [-t threads] [-o game file] <player> <player> [player...]");
+        System.err.println("Sizes: 3,5 or 3-6 between " + MIN_SIZE + " and " + MAX_SIZE);
+        System.err.println("Players: random, mcts[r]:<ms>, uct[r]:<playouts>, ab[t]:<ms>, solver:<nodes>, optionally followed by @<book file>");
+        System.exit(1);
+    }
+
+    private static List<Integer> parseSizes(String arg) {
+        List<Integer> sizes = new ArrayList<>();
+        for (String part : arg.split(",")) {
+            int dash = part.indexOf('-');
+            int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+            int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1));
+            if (from < MIN_SIZE || to > MAX_SIZE || from > to) {
+                throw new IllegalArgumentException("Invalid sizes " + part);
+            }
+            for (int size = from; size <= to; size++) {
+                sizes.add(size);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Creates a new player, which is used by a single thread only.
+     */
+    static Player createPlayer(String spec) {
+        int at = spec.indexOf('@');
+        if (at >= 0) {
+            try {
+                return new BookPlayer(OpeningBook.open(new File(spec.substring(at + 1))), createPlayer(spec.substring(0, at)));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Can't open the book of " + spec, e);
+            }
+        }
+
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon);
+        long value = colon < 0 ? 0 : Long.parseLong(spec.substring(colon + 1));
+        switch (name) {
+            case "random":
+                return new RandomPlayer(new Random());
+            case "mcts":
+                return new MonteCarloPlayer(1, value);
+            case "mctsr": {
+                MonteCarloPlayer player = new MonteCarloPlayer(1, value);
+                player.setPatternPlayouts(false);
+                return player;
+            }
+            case "uct": {
+                MonteCarloPlayer player = new MonteCarloPlayer(1, Long.MAX_VALUE / 2000000);
+                player.setMaxPlayouts(value);
+                return player;
+            }
+            case "uctr": {
+                MonteCarloPlayer player = new MonteCarloPlayer(1, Long.MAX_VALUE / 2000000);
+                player.setMaxPlayouts(value);
+                player.setPatternPlayouts(false);
+                return player;
+            }
+            case "ab":
+                // Iterations may run over the budget by half
+                return new AlphaBetaSearch(new TranspositionTable(SEARCH_TABLE_LOG2), new DistanceEvaluator(), value, value * 3 / 2);
+            case "abt":
+                return new AlphaBetaSearch(new TranspositionTable(SEARCH_TABLE_LOG2), new ThreatEvaluator(), value, value * 3 / 2);
+            case "solver":
+                return new SolverPlayer(new Solver(new TranspositionTable(SOLVER_TABLE_LOG2)), value,
+                        new RandomPlayer(new Random()));
+            default:
+                throw new IllegalArgumentException("Unknown player " + spec);
+        }
+    }
+
+    private static void report(String a, String b, int size, Result result, long elapsedNanos) {
+        int games = result.mWins[0] + result.mWins[1] + result.mDraws;
+        double score = (result.mWins[0] + 0.5 * result.mDraws) / games;
+        double center = (score + Z * Z / (2 * games)) / (1 + Z * Z / games);
+        double margin = Z / (1 + Z * Z / games) * Math.sqrt(score * (1 - score) / games + Z * Z / (4.0 * games * games));
+        System.out.println(String.format(Locale.US,
+                "size %2d  %s vs %s: %d-%d-%d, %.1f%% [%.1f%%, %.1f%%] for %s, first player won %.1f%%, %.1f plies, %.1f games/s",
+                size, a, b, result.mWins[0], result.mDraws, result.mWins[1],
+                100 * score, 100 * Math.max(0, center - margin), 100 * Math.min(1, center + margin), a,
+                100.0 * result.mFirstPlayerWins / games, (double) result.mPlies / games,
+                games * 1e9 / elapsedNanos));
+    }
+
+    private static class Result {
+        // Wins of the first and the second player of the pairing
+        private final int[] mWins = new int[2];
+        private int mDraws;
+        private int mFirstPlayerWins;
+        private long mPlies;
+
+        private void add(Result other) {
+            mWins[0] += other.mWins[0];
+            mWins[1] += other.mWins[1];
+            mDraws += other.mDraws;
+            mFirstPlayerWins += other.mFirstPlayerWins;
+            mPlies += other.mPlies;
+        }
+    }
+
+    /**
+     * Plays the games [from, to) of a pairing, splitting the range until it is small enough.
+     */
+    private static class Match extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final String mSpecA, mSpecB;
+        private final int mSize;
+        private final int mFrom, mTo;
+        private final GameDatabase.Writer mWriter;
+
+        Match(String specA, String specB, int size, int from, int to, GameDatabase.Writer writer) {
+            mSpecA = specA;
+            mSpecB = specB;
+            mSize = size;
+            mFrom = from;
+            mTo = to;
+            mWriter = writer;
+        }
+
+        @Override
+        protected Result compute() {
+            if (mTo - mFrom > GAMES_PER_TASK) {
+                int middle = (mFrom + mTo) >>> 1;
+                Match right = new Match(mSpecA, mSpecB, mSize, middle, mTo, mWriter);
+                right.fork();
+                Result result = new Match(mSpecA, mSpecB, mSize, mFrom, middle, mWriter).compute();
+                result.add(right.join());
+                return result;
+            }
+
+            Result result = new Result();
+            Player[] players = {createPlayer(mSpecA), createPlayer(mSpecB)};
+            Board board = new Board(mSize);
+            int[] moves = new int[board.getCellCount() + 1];
+            GameRecord record = new GameRecord();
+            for (int game = mFrom; game < mTo; game++) {
+                // Player A moves first in even games
+                int first = game & 1;
+                board.reset();
+                while (!board.isGameFinished() && board.getLegalMoves(moves) > 0) {
+                    Player player = players[board.getPlayer() ^ first];
+                    board.play(player.selectMove(board));
+                }
+
+                int winner = board.getWinningPlayer();
+                if (winner < 0) {
+                    result.mDraws++;
+                } else {
+                    result.mWins[winner ^ first]++;
+                    if (winner == 0) result.mFirstPlayerWins++;
+                }
+                result.mPlies += board.getMoveCount();
+
+                if (mWriter != null) {
+                    record.set(board);
+                    try {
+                        mWriter.append(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            for (Player player : players) {
+                if (player instanceof MonteCarloPlayer) ((MonteCarloPlayer) player).shutdown();
+            }
+            return result;
+        }
+    }
+
+    private static class RandomPlayer implements Player {
+        private final Random mRandom;
+        private int[] mMoves = new int[0];
+
+        RandomPlayer(Random random) {
+            mRandom = random;
+        }
+
+        @Override
+        public int selectMove(Board board) {
+            if (mMoves.length < board.getCellCount() + 1) {
+                mMoves = new int[board.getCellCount() + 1];
+            }
+            int count = board.getLegalMoves(mMoves);
+            return mMoves[mRandom.nextInt(count)];
+        }
+
+        @Override
+        public void setCancelFlag(AtomicBoolean cancelled) {
+            // Random moves are instant
+        }
+    }
+}